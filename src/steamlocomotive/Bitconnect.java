@@ -11,8 +11,9 @@ public class Bitconnect {
     /** Number of bits for encoding a message type. */
     public static final int MESSAGE_TYPE_BITS;
     static {
+        // UNKNOWN is never written, so it doesn't need an id.
         int result = 1;
-        while ((1 << result) < MessageType.values().length) result++;
+        while ((1 << result) < MessageType.values().length - 1) result++;
 
         MESSAGE_TYPE_BITS = result;
     }
@@ -23,6 +24,21 @@ public class Bitconnect {
     /** The number of rounds between heartbeats. */
     public static final int HEARTBEAT_CADENCE = 40;
 
+    /** Bits in the transaction header: the message count (3 bits) followed by the high-priority flag. */
+    public static final int HEADER_BITS = 4;
+
+    /** The number of bits in a transaction available for our header and messages (the last word is the checksum). */
+    public static final int PAYLOAD_BITS = 32 * 6;
+
+    /** The most messages that fit in a transaction, limited by the 3 bit message count. */
+    public static final int MAX_MESSAGES_PER_TRANSACTION = (1 << 3) - 1;
+
+    /** Bit set in the first word of a transaction which contains at least one high-priority message. */
+    private static final int HIGH_PRIORITY_FLAG = 1 << 3;
+
+    /** The last round of the early window, where HQ broadcasts its surroundings; always scanned on creation. */
+    public static final int EARLY_WINDOW_END = 20;
+
     /**
      * The possible different types of messages.
      */
@@ -32,17 +48,27 @@ public class Bitconnect {
         ENEMY_BASE(2, true),
         WALL_DONE(3, true),
         HEARTBEAT(4, true),
+        SNAPSHOT(5, true),
+        SOUP_FIELDS(6, false),
+        FLOW_FIELD(7, false),
         UNKNOWN(999999, false);
 
         private final int id;
         private final boolean highPriority;
 
-        public static MessageType fromId(int id) {
-            for (MessageType type : MessageType.values()) {
-                if (type.id == id) return type;
-            }
+        // Message types indexed by id, so decoding doesn't clone values() for every message.
+        private static final MessageType[] BY_ID;
+        static {
+            int maxId = 0;
+            for (MessageType type : MessageType.values()) if (type != UNKNOWN) maxId = Math.max(maxId, type.id);
 
-            return MessageType.UNKNOWN;
+            BY_ID = new MessageType[maxId + 1];
+            for (MessageType type : MessageType.values()) if (type != UNKNOWN) BY_ID[type.id] = type;
+        }
+
+        public static MessageType fromId(int id) {
+            if (id < 0 || id >= BY_ID.length || BY_ID[id] == null) return MessageType.UNKNOWN;
+            return BY_ID[id];
         }
 
         MessageType(int i, boolean highPriority) {
@@ -59,6 +85,13 @@ public class Bitconnect {
         }
     }
 
+    /** BIT_MASKS[n] has the low n bits set, for n from 0 to 32. */
+    private static final int[] BIT_MASKS = new int[33];
+    static {
+        for (int i = 0; i < 32; i++) BIT_MASKS[i] = (1 << i) - 1;
+        BIT_MASKS[32] = -1;
+    }
+
     /**
      * Utility class which allows for appending bits to a block dynamically.
      */
@@ -72,33 +105,39 @@ public class Bitconnect {
         }
 
         public void append(boolean bit) {
-            int wordIndex = this.index / 32, bitIndex = this.index % 32;
             // Data is 0 initialized, so only overwrite if bit is 1.
-            if (bit) data[wordIndex] |= (1 << bitIndex);
+            if (bit) data[this.index >>> 5] |= 1 << (this.index & 31);
 
             this.index += 1;
         }
 
         public void append(int value, int numBits) {
-            int wordIndex = this.index / 32, bitIndex = this.index % 32;
-            int wordAvailable = 32 - bitIndex;
-            if (wordAvailable < numBits) {
-                // Have to deal with writing across two integers.
-                int firstMask = (1 << wordAvailable) - 1;
-                int secondMask = (1 << (numBits - wordAvailable)) - 1;
-                // Write as many bits as possible to the current word.
-                data[wordIndex] |= (value & firstMask) << bitIndex;
-                // Write remaining to second word.
-                data[wordIndex + 1] |= (value >>> wordAvailable) & secondMask;
-            } else {
-                // Write just to the current integer.
-                int mask = (1 << numBits) - 1;
-                data[wordIndex] |= (value & mask) << bitIndex;
-            }
+            int wordIndex = this.index >>> 5, bitIndex = this.index & 31;
+            int masked = value & BIT_MASKS[numBits];
+
+            // Write as many bits as possible to the current word, and any remaining bits to the next one.
+            data[wordIndex] |= masked << bitIndex;
+            if (bitIndex + numBits > 32) data[wordIndex + 1] |= masked >>> (32 - bitIndex);
 
             this.index += numBits;
         }
 
+        /** Append a location in the 12-bit packed form (see packLocation). */
+        public void appendLocation(MapLocation loc) {
+            this.append(loc.x | (loc.y << 6), 12);
+        }
+
+        /** Append a 16-bit robot id. */
+        public void appendId(int id) {
+            this.append(id, 16);
+        }
+
+        /** Append the number of locations (in countBits bits), followed by each location in packed form. */
+        public void appendLocations(DynamicArray<MapLocation> locs, int countBits) {
+            this.append(locs.size(), countBits);
+            for (int i = 0; i < locs.size(); i++) this.appendLocation(locs.get(i));
+        }
+
         public int[] finish() {
             return this.data;
         }
@@ -108,7 +147,7 @@ public class Bitconnect {
      * Reads data from a block iteratively.
      */
     public static class BlockReader {
-        private final int[] data;
+        private int[] data;
         private int index;
 
         public BlockReader(int[] data) {
@@ -116,56 +155,132 @@ public class Bitconnect {
             this.index = 0;
         }
 
+        /** Start reading a different block from the beginning, so a single reader can be reused. */
+        public void reset(int[] data) {
+            this.data = data;
+            this.index = 0;
+        }
+
         public boolean readBoolean() {
-            int wordIndex = this.index / 32, bitIndex = this.index % 32;
-            boolean value = (data[wordIndex] & (1 << bitIndex)) != 0;
+            boolean value = (data[this.index >>> 5] & (1 << (this.index & 31))) != 0;
 
             this.index += 1;
             return value;
         }
 
+        /** Skip over the given number of bits without reading them. */
+        public void skip(int numBits) {
+            this.index += numBits;
+        }
+
         public int readInteger(int numBits) {
-            int wordIndex = this.index / 32, bitIndex = this.index % 32;
-            int wordAvailable = 32 - bitIndex;
-            int result = 0;
-
-            if (wordAvailable < numBits) {
-                // Need to handle reading across two seperate words.
-                result = (data[wordIndex] >>> bitIndex) & ((1 << wordAvailable) - 1);
-                result |= (data[wordIndex + 1] & ((1 << (numBits - wordAvailable)) - 1)) << wordAvailable;
-            } else {
-                result = (data[wordIndex] >>> bitIndex) & ((1 << numBits) - 1);
-            }
+            int wordIndex = this.index >>> 5, bitIndex = this.index & 31;
+
+            // Read the rest of the current word, plus the start of the next one if the value continues into it.
+            int result = data[wordIndex] >>> bitIndex;
+            if (bitIndex + numBits > 32) result |= data[wordIndex + 1] << (32 - bitIndex);
 
             this.index += numBits;
-            return result;
+            return result & BIT_MASKS[numBits];
+        }
+
+        /** Read a location in its 12-bit packed form (see unpackLocation). */
+        public int readPackedLocation() {
+            return this.readInteger(12);
+        }
+
+        /** Read a 16-bit robot id. */
+        public int readId() {
+            return this.readInteger(16);
+        }
+
+        /**
+         * Read a count (in countBits bits) followed by that many packed locations into the given array; returns the
+         * count. The array must be large enough for any count.
+         */
+        public int readPackedLocations(int[] out, int countBits) {
+            int count = this.readInteger(countBits);
+            for (int i = 0; i < count; i++) out[i] = this.readInteger(12);
+            return count;
         }
     }
 
     /**
      * A message implementation; allows for converting the message to a block. Check it's type to downcast.
      */
-    private interface Message {
+    private static abstract class Message {
+        // The number of times this message was sent but never showed up on the chain.
+        private int attempts;
+        // Set once a transaction carrying this message shows up on the chain, so it is never resent.
+        private boolean delivered;
+
         /**
          * The type of this message (see MessageType).
          */
-        MessageType type();
+        public abstract MessageType type();
 
         /**
          * The size of the contents of this message in bits.
          */
-        int bitSize();
+        public abstract int bitSize();
 
         /**
          * Write this message to the given block builder.
          */
-        void write(BlockBuilder builder);
+        public abstract void write(BlockBuilder builder);
+
+        /**
+         * Distinguishes messages of the same type which carry different facts; a newer message with the same type and
+         * key supersedes an older one. Most types only carry one fact, so the default is 0.
+         */
+        public int key() {
+            return 0;
+        }
+
+        /** True if the given message carries the same fact as this one (possibly with a different value). */
+        public boolean sameKey(Message other) {
+            return this.type() == other.type() && this.key() == other.key();
+        }
+
+        /**
+         * What this message says about its fact, as a single integer, so a copy decoded off the chain can be matched
+         * against the queue without allocating. Defaults to 0 for messages which don't carry a simple value.
+         */
+        public int packedValue() {
+            return 0;
+        }
+    }
+
+    /**
+     * A transaction we've submitted but have not yet seen on the chain.
+     */
+    private static class PendingTransaction {
+        // The round the transaction was submitted on.
+        final int round;
+        // The exact payload we submitted, to recognize it in blocks.
+        final int[] payload;
+        // The messages packed into the payload, to requeue if we were outbid.
+        final Message[] messages;
+        // Whether the messages have been requeued; the transaction may still be included later, so we keep watching.
+        boolean requeued;
+
+        PendingTransaction(int round, int[] payload, Message[] messages) {
+            this.round = round;
+            this.payload = payload;
+            this.messages = messages;
+        }
+
+        boolean matches(int[] data) {
+            if (data.length != payload.length || data[6] != payload[6]) return false;
+            for (int i = 0; i < 6; i++) if (data[i] != payload[i]) return false;
+            return true;
+        }
     }
 
     /**
      * Wall locations and current status of the walls.
      */
-    public static class HQSurroundings implements Message {
+    public static class HQSurroundings extends Message {
         // Core wall locations (between 3 and 8) to build the wall.
         private final DynamicArray<MapLocation> walls;
         // The HQ location.
@@ -193,32 +308,21 @@ public class Bitconnect {
         }
 
         public void write(BlockBuilder builder) {
-            // Write the number of walls (3 bits), followed by wall offsets (2x3 bits each), followed by wall finish.
-            builder.append(walls.size(), 4);
-            for (MapLocation loc : walls) {
-                builder.append(loc.x, 6);
-                builder.append(loc.y, 6);
-            }
-            builder.append(hq.x, 6);
-            builder.append(hq.y, 6);
+            // Write the number of walls (4 bits), followed by the packed wall locations, followed by the HQ.
+            builder.appendLocations(walls, 4);
+            builder.appendLocation(hq);
         }
 
         public static HQSurroundings read(BlockReader reader) {
             int numWalls = reader.readInteger(4);
             DynamicArray<MapLocation> walls = new DynamicArray<>(numWalls);
-            for (int i = 0; i < numWalls; i++) {
-                int x = reader.readInteger(6);
-                int y = reader.readInteger(6);
-                walls.add(new MapLocation(x, y));
-            }
+            for (int i = 0; i < numWalls; i++) walls.add(Bitconnect.unpackLocation(reader.readPackedLocation()));
 
-            int x = reader.readInteger(6);
-            int y = reader.readInteger(6);
-            return new HQSurroundings(walls, new MapLocation(x, y));
+            return new HQSurroundings(walls, Bitconnect.unpackLocation(reader.readPackedLocation()));
         }
     }
 
-    public static class LocationMessage implements Message {
+    public static class LocationMessage extends Message {
         private MapLocation location;
         private MessageType type;
 
@@ -241,19 +345,28 @@ public class Bitconnect {
             return 12;
         }
 
+        @Override
+        public int key() {
+            // Every eliminated location is a separate fact; there is only ever one enemy base.
+            return type == MessageType.NO_ENEMY_BASE ? Bitconnect.packLocation(location) : 0;
+        }
+
+        @Override
+        public int packedValue() {
+            return Bitconnect.packLocation(location);
+        }
+
         @Override
         public void write(BlockBuilder builder) {
-            builder.append(location.x, 6);
-            builder.append(location.y, 6);
+            builder.appendLocation(location);
         }
 
         public static LocationMessage read(BlockReader reader, MessageType type) {
-            MapLocation loc = new MapLocation(reader.readInteger(6), reader.readInteger(6));
-            return new LocationMessage(loc, type);
+            return new LocationMessage(Bitconnect.unpackLocation(reader.readPackedLocation()), type);
         }
     }
 
-    public static class BooleanMessage implements Message {
+    public static class BooleanMessage extends Message {
         private MessageType type;
         private boolean value;
 
@@ -276,6 +389,11 @@ public class Bitconnect {
             return 1;
         }
 
+        @Override
+        public int packedValue() {
+            return this.value ? 1 : 0;
+        }
+
         @Override
         public void write(BlockBuilder builder) {
             builder.append(this.value);
@@ -286,7 +404,7 @@ public class Bitconnect {
         }
     }
 
-    public static class HeartbeatMessage implements Message {
+    public static class HeartbeatMessage extends Message {
         private int id;
         private MapLocation location;
         private RobotType type;
@@ -310,26 +428,314 @@ public class Bitconnect {
         @Override
         public int bitSize() { return 16 + 12 + 16 + 4; }
 
+        @Override
+        public int key() { return id; }
+
+        @Override
+        public int packedValue() { return round; }
+
         @Override
         public void write(BlockBuilder builder) {
-            builder.append(this.id, 16);
-            builder.append(this.location.x, 6);
-            builder.append(this.location.y, 6);
+            builder.appendId(this.id);
+            builder.appendLocation(this.location);
             builder.append(this.type.ordinal(), 4);
             builder.append(this.round, 16);
         }
 
         public static HeartbeatMessage read(BlockReader reader) {
-            int id = reader.readInteger(16);
-            int locX = reader.readInteger(6);
-            int locY = reader.readInteger(6);
-            RobotType type = RobotType.values()[reader.readInteger(4)];
+            int id = reader.readId();
+            MapLocation location = Bitconnect.unpackLocation(reader.readPackedLocation());
+            RobotType type = ROBOT_TYPES[reader.readInteger(4)];
             int round = reader.readInteger(16);
 
-            return new HeartbeatMessage(id, new MapLocation(locX, locY), type, round);
+            return new HeartbeatMessage(id, location, type, round);
+        }
+    }
+
+    /**
+     * The HQ's view of all the shared state: its surroundings, wall status, and what's known about the enemy HQ, so a
+     * new unit can start reading the chain from the latest snapshot instead of replaying history.
+     */
+    public static class StateSnapshot extends Message {
+        // The HQ surroundings, written in the same format as an HQ_SURROUNDINGS message.
+        private final HQSurroundings surroundings;
+        private final boolean wallDone;
+        // The enemy HQ if known; otherwise a bitmask (by ordinal) of the map symmetries still possible.
+        private final MapLocation enemyHq;
+        private final int candidateMask;
+
+        public StateSnapshot(HQSurroundings surroundings, boolean wallDone, MapLocation enemyHq, int candidateMask) {
+            this.surroundings = surroundings;
+            this.wallDone = wallDone;
+            this.enemyHq = enemyHq;
+            this.candidateMask = candidateMask;
+        }
+
+        public HQSurroundings surroundings() { return surroundings; }
+        public boolean wallDone() { return wallDone; }
+        public MapLocation enemyHq() { return enemyHq; }
+        public int candidateMask() { return candidateMask; }
+
+        @Override
+        public MessageType type() { return MessageType.SNAPSHOT; }
+
+        @Override
+        public int bitSize() { return surroundings.bitSize() + 1 + 1 + (enemyHq != null ? 12 : 3); }
+
+        @Override
+        public void write(BlockBuilder builder) {
+            surroundings.write(builder);
+            builder.append(wallDone);
+            builder.append(enemyHq != null);
+            if (enemyHq != null) builder.appendLocation(enemyHq);
+            else builder.append(candidateMask, 3);
+        }
+
+        public static StateSnapshot read(BlockReader reader) {
+            HQSurroundings surroundings = HQSurroundings.read(reader);
+            boolean wallDone = reader.readBoolean();
+            if (reader.readBoolean()) return new StateSnapshot(surroundings, wallDone, Bitconnect.unpackLocation(reader.readPackedLocation()), 0);
+
+            return new StateSnapshot(surroundings, wallDone, null, reader.readInteger(3));
+        }
+    }
+
+    /**
+     * Soup density levels for a batch of map regions (see SoupMap). Each flush gets a new message, so one which has
+     * landed (or is pending) is never changed under it; a newer one replaces any still queued.
+     */
+    public static class SoupFieldsMessage extends Message {
+        // The most regions in one message, limited by the 4 bit count.
+        public static final int MAX_REGIONS = 15;
+
+        private final int[] regions, levels;
+        private final int count;
+
+        /** A message of (up to MAX_REGIONS of) the given map's dirty regions. */
+        public SoupFieldsMessage(SoupMap map) {
+            this.regions = new int[MAX_REGIONS];
+            this.levels = new int[MAX_REGIONS];
+            this.count = map.dirtyRegions(this.regions, this.levels, MAX_REGIONS);
+        }
+
+        @Override
+        public MessageType type() { return MessageType.SOUP_FIELDS; }
+
+        @Override
+        public int bitSize() { return 4 + count * (SoupMap.REGION_BITS + SoupMap.LEVEL_BITS); }
+
+        @Override
+        public void write(BlockBuilder builder) {
+            builder.append(count, 4);
+            for (int i = 0; i < count; i++) {
+                builder.append(regions[i], SoupMap.REGION_BITS);
+                builder.append(levels[i], SoupMap.LEVEL_BITS);
+            }
+        }
+    }
+
+    /**
+     * A batch of the flow field home (see FlowField): either hints, or rows of the bitmap of tiles the field covers.
+     * Fields too big for one message are split over several, keyed by their index in the batch.
+     */
+    public static class FlowFieldMessage extends Message {
+        // The most hints in one message, limited by the 4 bit count.
+        public static final int MAX_HINTS = 15;
+        // The most coverage rows in one message; two messages cover the window.
+        public static final int MAX_ROWS = (FlowField.SIZE + 1) / 2;
+
+        private final int version, chunk;
+        // The hints, or (if rows is set) the coverage rows; count of them from start are in this message.
+        private final boolean rows;
+        private final int[] offsets, directions;
+        private final int start, count;
+
+        /** A message of count hints from start. */
+        public FlowFieldMessage(int version, int chunk, int[] offsets, int[] directions, int start, int count) {
+            this.version = version;
+            this.chunk = chunk;
+            this.rows = false;
+            this.offsets = offsets;
+            this.directions = directions;
+            this.start = start;
+            this.count = count;
+        }
+
+        /** A message of count coverage rows from start. */
+        public FlowFieldMessage(int version, int chunk, int[] rows, int start, int count) {
+            this.version = version;
+            this.chunk = chunk;
+            this.rows = true;
+            this.offsets = null;
+            this.directions = rows;
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public MessageType type() { return MessageType.FLOW_FIELD; }
+
+        @Override
+        public int key() { return chunk; }
+
+        @Override
+        public int bitSize() {
+            if (rows) return FlowField.VERSION_BITS + 1 + 4 + 4 + count * FlowField.SIZE;
+            return FlowField.VERSION_BITS + 1 + 4 + count * (FlowField.OFFSET_BITS + FlowField.DIRECTION_BITS);
+        }
+
+        @Override
+        public void write(BlockBuilder builder) {
+            builder.append(version, FlowField.VERSION_BITS);
+            builder.append(rows);
+            builder.append(count, 4);
+            if (rows) {
+                builder.append(start, 4);
+                for (int i = start; i < start + count; i++) builder.append(directions[i], FlowField.SIZE);
+                return;
+            }
+
+            for (int i = start; i < start + count; i++) {
+                builder.append(offsets[i], FlowField.OFFSET_BITS);
+                builder.append(directions[i], FlowField.DIRECTION_BITS);
+            }
         }
     }
 
+    /**
+     * Queue of outgoing messages: high-priority messages come before low-priority ones, and messages of the same
+     * priority come out in the order they were queued. Enqueueing and dequeueing are O(1).
+     */
+    private static class SendQueue {
+        private final RingBuffer<Message> high, low;
+        // The number of queued messages of each type (by ordinal), so checking for a type that isn't queued is O(1).
+        private final int[] queued;
+
+        public SendQueue(int capacity) {
+            this.high = new RingBuffer<>(capacity);
+            this.low = new RingBuffer<>(capacity);
+            this.queued = new int[MessageType.values().length];
+        }
+
+        /** True if any message of the given type is queued. */
+        public boolean has(MessageType type) {
+            return this.queued[type.ordinal()] > 0;
+        }
+
+        public int size() {
+            return high.size() + low.size();
+        }
+
+        /**
+         * Queue a message. If a message with the same key is already queued, it is replaced in place by this newer one
+         * (keeping its place in line); otherwise, if its priority class is full, the oldest message of that class is
+         * dropped to make room.
+         */
+        public void add(Message msg) {
+            RingBuffer<Message> queue = msg.type().isHighPriority() ? high : low;
+            int existing = SendQueue.indexOf(queue, msg);
+            if (existing != -1) {
+                msg.attempts = queue.set(existing, msg).attempts;
+                return;
+            }
+
+            if (queue.isFull()) this.queued[queue.poll().type().ordinal()]--;
+            queue.add(msg);
+            this.queued[msg.type().ordinal()]++;
+        }
+
+        /**
+         * Put a message back at the front of its priority class, ahead of anything queued since; if the class is full,
+         * the newest message of that class is dropped to make room. If a newer message with the same key has been
+         * queued since, that one is kept instead.
+         */
+        public void addFirst(Message msg) {
+            RingBuffer<Message> queue = msg.type().isHighPriority() ? high : low;
+            int existing = SendQueue.indexOf(queue, msg);
+            if (existing != -1) {
+                Message newer = queue.get(existing);
+                newer.attempts = Math.max(newer.attempts, msg.attempts);
+                return;
+            }
+
+            if (queue.isFull()) this.queued[queue.removeAt(queue.size() - 1).type().ordinal()]--;
+            queue.addFirst(msg);
+            this.queued[msg.type().ordinal()]++;
+        }
+
+        /**
+         * Remove every queued message of the given type whose key matches (any key if matchAnyKey is set) and whose
+         * value is between minValue and maxValue inclusive; returns the number of messages removed. Free if no message
+         * of the type is queued, which is the usual case when decoding.
+         */
+        public int remove(MessageType type, int key, boolean matchAnyKey, int minValue, int maxValue) {
+            if (this.queued[type.ordinal()] == 0) return 0;
+
+            RingBuffer<Message> queue = type.isHighPriority() ? high : low;
+            int removed = 0;
+            for (int i = queue.size() - 1; i >= 0; i--) {
+                Message msg = queue.get(i);
+                if (msg.type() != type || (!matchAnyKey && msg.key() != key)) continue;
+
+                int value = msg.packedValue();
+                if (value < minValue || value > maxValue) continue;
+
+                queue.removeAt(i);
+                removed++;
+            }
+
+            this.queued[type.ordinal()] -= removed;
+            return removed;
+        }
+
+        /** Remove every queued message of the given type, whatever its key or value. */
+        public int removeAll(MessageType type) {
+            return this.remove(type, 0, true, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+
+        /** Remove the given message (this very one, not another with the same key) if it is still queued. */
+        public void discard(Message msg) {
+            if (this.queued[msg.type().ordinal()] == 0) return;
+
+            RingBuffer<Message> queue = msg.type().isHighPriority() ? high : low;
+            for (int i = 0; i < queue.size(); i++) {
+                if (queue.get(i) != msg) continue;
+
+                queue.removeAt(i);
+                this.queued[msg.type().ordinal()]--;
+                return;
+            }
+        }
+
+        /** Remove the message at the given position in send order. */
+        public void removeAt(int index) {
+            Message msg = index < high.size() ? high.removeAt(index) : low.removeAt(index - high.size());
+            this.queued[msg.type().ordinal()]--;
+        }
+
+        private static int indexOf(RingBuffer<Message> queue, Message msg) {
+            for (int i = 0; i < queue.size(); i++) if (queue.get(i).sameKey(msg)) return i;
+            return -1;
+        }
+
+        /** Get the message at the given position in send order. */
+        public Message get(int index) {
+            return index < high.size() ? high.get(index) : low.get(index - high.size());
+        }
+
+        /** Remove the messages at the given send order positions, which must be in increasing order. */
+        public void removeAll(int[] indices, int count) {
+            int numHigh = high.size();
+            for (int i = count - 1; i >= 0; i--) {
+                Message msg = indices[i] < numHigh ? high.removeAt(indices[i]) : low.removeAt(indices[i] - numHigh);
+                this.queued[msg.type().ordinal()]--;
+            }
+        }
+    }
+
+    // Robot types indexed by ordinal, for decoding heartbeats without cloning values().
+    private static final RobotType[] ROBOT_TYPES = RobotType.values();
+
     // Map width and height.
     private final int width, height;
 
@@ -339,6 +745,16 @@ public class Bitconnect {
     // Before we know the exact location of the enemy HQ, this is the list of possible enemy HQ locations based on map symmetry.
     private DynamicArray<MapLocation> possibleEnemyHqs;
 
+    // Which map symmetries are still possible, and the evidence against the others.
+    private final SymmetryInference symmetry;
+
+    // Team-wide soup density per map region, and the last round we queued our changes to it.
+    private final SoupMap soupMap;
+    private int lastSoupFlush;
+
+    // The HQ's flow field home, as last broadcast.
+    private final FlowField flowField;
+
     // Wall locations surrounding the HQ.
     private DynamicArray<MapLocation> walls;
 
@@ -346,40 +762,92 @@ public class Bitconnect {
     private boolean wallDone;
 
     // Queue of messages to attempt to send.
-    private final DynamicArray<Message> sendQueue;
+    private final SendQueue sendQueue;
+
+    // Send order positions of the messages chosen for the transaction currently being built.
+    private final int[] packedIndices;
+
+    // Transactions we've submitted which haven't been seen on the chain yet.
+    private final RingBuffer<PendingTransaction> pending;
+
+    // The lowest bid which would have made it into each recently scanned block, and the rounds of those blocks.
+    private final int[] recentPrices, recentPriceRounds;
+
+    // Buildings which have broadcast a heartbeat in the past HEARTBEAT_TIMEOUT rounds, indexed by robot type ordinal
+    // (null for types which don't send heartbeats).
+    private final HeartbeatRegistry[] buildings;
+
+    // The next round whose block has not been read; every block before this round has been fully processed.
+    private int scanCursor;
+
+    // The first round of the recent window; the cursor skips straight here after finishing the early window.
+    private int recentWindowStart;
+
+    // Verified transaction payloads which have been read off the chain but not decoded yet, split by priority.
+    private final RingBuffer<int[]> highBacklog, lowBacklog;
+    // The rounds of the blocks each backlogged payload was posted in, in the same order as the backlogs.
+    private final IntRingBuffer highBacklogRounds, lowBacklogRounds;
 
-    // Design schools that have broadcasted existence in the past 30 turns
-    private DynamicArray<HeartbeatMessage> designSchools;
+    // The current round, as of the last initialize or updateForTurn.
+    private int round;
 
-    // Fulfillment centers that have broadcasted existence in the past 30 turns.
-    private DynamicArray<HeartbeatMessage> fulfillmentCenters;
+    // The last round the enemy HQ, wall status and HQ surroundings we hold were seen on the chain (0 if never).
+    private int enemyBaseSeenRound, wallDoneSeenRound, surroundingsSeenRound;
+
+    // Reader reused for decoding every payload.
+    private final BlockReader reader;
+
+    // Packed wall locations (followed by the HQ) from the last HQ surroundings message, for cheap change detection.
+    private final int[] packedSurroundings, scratchSurroundings;
+    private int numPackedSurroundings;
 
     /**
-     * Initialize a new communications handler from the given robot controller. This initialization
-     * can be potentially expensive, since it scans early blocks for HQ location and wall state.
+     * Initialize a new communications handler from the given robot controller. If the HQ has published a snapshot
+     * recently, it is read immediately and only the last HEARTBEAT_CADENCE rounds (for the heartbeats) are read by the
+     * scan cursor. Otherwise the early
+     * window is read until the HQ surroundings are known; the rest of the history (the early window and the last
+     * COMMS_SCAN_WINDOW rounds) is read incrementally by the scan cursor over this and following turns.
      */
     public static Bitconnect initialize(RobotController rc) throws GameActionException {
         Bitconnect conn = new Bitconnect(rc.getMapWidth(), rc.getMapHeight());
-        for (int round = 2; round <= Math.min(20, rc.getRoundNum() - 1); round++) {
-            Transaction[] trans = rc.getBlock(round);
-            for (Transaction tr : trans) conn.handleTransaction(rc, tr);
+        conn.round = rc.getRoundNum();
+
+        int snapshotRound = conn.findSnapshot(rc);
+        if (snapshotRound != -1) {
+            conn.scanCursor = snapshotRound;
+            conn.recentWindowStart = snapshotRound;
+            conn.scanNext(rc);
+            while (conn.backlogSize() > 0) conn.decodeNext();
+
+            // The snapshot doesn't carry heartbeats; buildings send one every HEARTBEAT_CADENCE rounds, so read back
+            // far enough to hear from every live one.
+            conn.scanCursor = Math.max(2, Math.min(conn.scanCursor, rc.getRoundNum() - HEARTBEAT_CADENCE - 1));
+            conn.recentWindowStart = conn.scanCursor;
+            conn.catchUp(rc);
+            return conn;
+        }
+
+        conn.recentWindowStart = Math.max(EARLY_WINDOW_END + 1, rc.getRoundNum() - Config.COMMS_SCAN_WINDOW);
+
+        // Almost every unit needs the HQ location and walls immediately, so read those regardless of bytecodes.
+        int earlyEnd = Math.min(EARLY_WINDOW_END, rc.getRoundNum() - 1);
+        while (conn.hq == null && conn.scanCursor <= earlyEnd) {
+            conn.scanNext(rc);
+            while (conn.backlogSize() > 0) conn.decodeNext();
         }
 
+        conn.catchUp(rc);
         return conn;
     }
 
-    /**
-     * Compute potential enemy HQ locations based on our HQ location.
-     */
-    public static DynamicArray<MapLocation> computeEnemyLocations(MapLocation hq, int width, int height) {
-        DynamicArray<MapLocation> possibleEnemyHqs = new DynamicArray<>(3);
-        MapLocation curr = hq;
-        for (int i = 0; i < 3; i++) {
-            curr = new MapLocation(width - curr.y - 1, curr.x);
-            possibleEnemyHqs.add(curr);
-        }
+    /** Pack a location into the 12-bit (6 bits x, then 6 bits y) form it is written to blocks with. */
+    public static int packLocation(MapLocation loc) {
+        return loc.x | (loc.y << 6);
+    }
 
-        return possibleEnemyHqs;
+    /** Inverse of packLocation. */
+    public static MapLocation unpackLocation(int packed) {
+        return new MapLocation(packed & 0x3F, packed >>> 6);
     }
 
     /**
@@ -392,69 +860,112 @@ public class Bitconnect {
     }
 
     private Bitconnect(int width, int height) {
-        this.sendQueue = new DynamicArray<>(20);
+        this.sendQueue = new SendQueue(Config.COMMS_SEND_QUEUE_SIZE);
+        this.packedIndices = new int[MAX_MESSAGES_PER_TRANSACTION];
+        this.pending = new RingBuffer<>(Config.COMMS_MAX_PENDING);
+        this.recentPrices = new int[Config.COMMS_BID_WINDOW];
+        this.recentPriceRounds = new int[Config.COMMS_BID_WINDOW];
         this.width = width;
         this.height = height;
-        this.fulfillmentCenters = new DynamicArray<>(4);
-        this.designSchools = new DynamicArray<>(4);
+        this.symmetry = new SymmetryInference(width, height);
+        this.soupMap = new SoupMap(width, height);
+        this.lastSoupFlush = -Config.SOUP_FIELD_FLUSH_INTERVAL;
+        this.flowField = new FlowField();
+        this.buildings = new HeartbeatRegistry[ROBOT_TYPES.length];
+        for (RobotType type : ROBOT_TYPES) {
+            if (type.isBuilding() && type != RobotType.HQ)
+                this.buildings[type.ordinal()] = new HeartbeatRegistry(Config.HEARTBEAT_REGISTRY_CAPACITY, HEARTBEAT_TIMEOUT);
+        }
+        // No blocks are posted on round 1, so start reading at round 2.
+        this.scanCursor = 2;
+        this.recentWindowStart = EARLY_WINDOW_END + 1;
+        this.highBacklog = new RingBuffer<>(Config.COMMS_BACKLOG_SIZE);
+        this.lowBacklog = new RingBuffer<>(Config.COMMS_BACKLOG_SIZE);
+        this.highBacklogRounds = new IntRingBuffer(Config.COMMS_BACKLOG_SIZE);
+        this.lowBacklogRounds = new IntRingBuffer(Config.COMMS_BACKLOG_SIZE);
+        this.reader = new BlockReader(null);
+        // Up to 15 walls (4 bit count) plus the HQ itself.
+        this.packedSurroundings = new int[16];
+        this.scratchSurroundings = new int[16];
+        this.numPackedSurroundings = 0;
     }
 
-    private void handleTransaction(RobotController rc, Transaction trans) throws GameActionException {
+    /** Verify a transaction is one of ours and queue its payload for decoding, high-priority payloads separately. */
+    private void enqueueTransaction(RobotController rc, Transaction trans, int round) {
         // Verify there's actually a transaction here.
         if (trans == null || trans.getMessage() == null) return;
         // Verify the checksum on this transaction, ignore it if invalid.
-        if (Bitconnect.checksum(trans.getMessage(), 0, 6, rc.getTeam()) != trans.getMessage()[6]) return;
+        int[] data = trans.getMessage();
+        if (Bitconnect.checksum(data, 0, 6, rc.getTeam()) != data[6]) return;
+
+        // If this is one of our own submissions, it made it onto the chain. If we took it for outbid and requeued its
+        // messages, drop the copies still waiting so we don't pay for them twice.
+        for (int i = 0; i < this.pending.size(); i++) {
+            if (!this.pending.get(i).matches(data)) continue;
+
+            PendingTransaction landed = this.pending.removeAt(i);
+            for (Message msg : landed.messages) {
+                msg.delivered = true;
+                if (landed.requeued) this.sendQueue.discard(msg);
+            }
+            break;
+        }
 
+        if ((data[0] & HIGH_PRIORITY_FLAG) != 0) {
+            this.highBacklog.add(data);
+            this.highBacklogRounds.add(round);
+        } else {
+            this.lowBacklog.add(data);
+            this.lowBacklogRounds.add(round);
+        }
+    }
+
+    /** Decode the oldest high-priority payload in the backlog, or the oldest low-priority one if there are none. */
+    private void decodeNext() {
+        if (!this.highBacklog.isEmpty()) this.handleTransaction(this.highBacklog.poll(), this.highBacklogRounds.poll());
+        else if (!this.lowBacklog.isEmpty()) this.handleTransaction(this.lowBacklog.poll(), this.lowBacklogRounds.poll());
+    }
+
+    /**
+     * Decode a verified payload straight into our state. Locations are compared in packed form and objects are only
+     * allocated when state actually changes (a new HQ, wall set, enemy HQ or building), so re-reading the periodic
+     * retransmissions is allocation-free. Anything we had queued to send which the chain already says (as of the
+     * given round) is dropped from the send queue.
+     */
+    private void handleTransaction(int[] data, int round) {
         // Read the chunks within this transaction.
-        BlockReader reader = new BlockReader(trans.getMessage());
+        BlockReader reader = this.reader;
+        reader.reset(data);
         int numMessages = reader.readInteger(3);
+        reader.readBoolean();
 
         for (int index = 0; index < numMessages; index++) {
-            int messageId = reader.readInteger(MESSAGE_TYPE_BITS);
-            switch (MessageType.fromId(messageId)) {
+            switch (MessageType.fromId(reader.readInteger(MESSAGE_TYPE_BITS))) {
                 case ENEMY_BASE:
-                    this.enemyHq = LocationMessage.read(reader, MessageType.ENEMY_BASE).location;
-                    this.possibleEnemyHqs = new DynamicArray<>(1);
-                    this.possibleEnemyHqs.add(enemyHq);
+                    this.decodeEnemyBase(reader.readPackedLocation(), round);
                     break;
                 case HQ_SURROUNDINGS:
-                    HQSurroundings surr = HQSurroundings.read(reader);
-                    MapLocation oldHq = this.hq;
-                    this.hq = surr.hq;
-                    this.walls = surr.walls;
-
-                    if (this.hq != null && oldHq == null) this.handlePotentialEnemyLocs(this.hq);
+                    this.decodeHqSurroundings(reader);
+                    this.surroundingsSeenRound = Math.max(this.surroundingsSeenRound, round);
+                    this.dropQueuedSurroundings();
                     break;
                 case WALL_DONE:
-                    this.wallDone = BooleanMessage.read(reader, MessageType.WALL_DONE).value;
+                    this.decodeWallDone(reader.readBoolean(), round);
                     break;
                 case HEARTBEAT:
-                    HeartbeatMessage heartbeat = HeartbeatMessage.read(reader);
-                    if (heartbeat.type == RobotType.DESIGN_SCHOOL) {
-                        int hindex;
-                        for (hindex = 0; hindex < designSchools.size(); hindex++) {
-                            if (designSchools.get(hindex).id() == heartbeat.id()) break;
-                        }
-
-                        if (hindex < designSchools.size()) designSchools.set(hindex, heartbeat);
-                        else designSchools.add(heartbeat);
-                    } else if (heartbeat.type == RobotType.FULFILLMENT_CENTER) {
-                        int hindex;
-                        for (hindex = 0; hindex < fulfillmentCenters.size(); hindex++) {
-                            if (fulfillmentCenters.get(hindex).id() == heartbeat.id()) break;
-                        }
-
-                        if (hindex < fulfillmentCenters.size()) fulfillmentCenters.set(hindex, heartbeat);
-                        else fulfillmentCenters.add(heartbeat);
-                    }
+                    this.decodeHeartbeat(reader);
                     break;
                 case NO_ENEMY_BASE:
-                    MapLocation enemyLoc = LocationMessage.read(reader, MessageType.NO_ENEMY_BASE).location;
-                    if (this.possibleEnemyHqs != null) {
-                        int enemyIdx = this.possibleEnemyHqs.indexOf(enemyLoc);
-                        if (enemyIdx != -1) this.possibleEnemyHqs.removeQuick(enemyIdx);
-                        if (this.possibleEnemyHqs.size() == 1) this.enemyHq = this.possibleEnemyHqs.get(0);
-                    }
+                    this.decodeNoEnemyBase(reader.readPackedLocation());
+                    break;
+                case SNAPSHOT:
+                    this.decodeSnapshot(reader, round);
+                    break;
+                case SOUP_FIELDS:
+                    this.decodeSoupFields(reader, round);
+                    break;
+                case FLOW_FIELD:
+                    this.decodeFlowField(reader);
                     break;
                 default:
                     throw new IllegalStateException("Unrecognized message type during transaction parsing");
@@ -462,6 +973,222 @@ public class Bitconnect {
         }
     }
 
+    private void decodeEnemyBase(int packed, int round) {
+        // Once the enemy base is on the chain, nobody needs our eliminations or our copy of the same location.
+        this.sendQueue.removeAll(MessageType.NO_ENEMY_BASE);
+        this.sendQueue.remove(MessageType.ENEMY_BASE, 0, false, packed, packed);
+
+        if (this.enemyHq != null && Bitconnect.packLocation(this.enemyHq) == packed) {
+            this.enemyBaseSeenRound = Math.max(this.enemyBaseSeenRound, round);
+            return;
+        }
+
+        this.enemyHq = Bitconnect.unpackLocation(packed);
+        this.enemyBaseSeenRound = round;
+        this.possibleEnemyHqs = new DynamicArray<>(1);
+        this.possibleEnemyHqs.add(enemyHq);
+    }
+
+    private void decodeNoEnemyBase(int packed) {
+        // Someone else already ruled this location out.
+        this.sendQueue.remove(MessageType.NO_ENEMY_BASE, packed, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (this.hq == null) return;
+
+        if (this.symmetry.eliminateHqAt(this.hq, Bitconnect.unpackLocation(packed))) this.refreshEnemyCandidates();
+    }
+
+    /**
+     * Recompute the possible enemy HQ locations from the symmetries still possible. A sole survivor stays a candidate
+     * until someone sees the HQ there, since eliminations may come from (fallible) evidence.
+     */
+    private void refreshEnemyCandidates() {
+        if (this.enemyHq != null) return;
+
+        this.possibleEnemyHqs = this.symmetry.candidates(this.hq);
+    }
+
+    private void decodeSoupFields(BlockReader reader, int round) {
+        int count = reader.readInteger(4);
+        for (int i = 0; i < count; i++) {
+            int region = reader.readInteger(SoupMap.REGION_BITS);
+            this.soupMap.apply(region, reader.readInteger(SoupMap.LEVEL_BITS), round);
+        }
+    }
+
+    private void decodeFlowField(BlockReader reader) {
+        int version = reader.readInteger(FlowField.VERSION_BITS);
+        boolean rows = reader.readBoolean();
+        int count = reader.readInteger(4);
+
+        this.flowField.beginVersion(version);
+        if (rows) {
+            int start = reader.readInteger(4);
+            for (int i = start; i < start + count; i++) this.flowField.applyRow(version, i, reader.readInteger(FlowField.SIZE));
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int offset = reader.readInteger(FlowField.OFFSET_BITS);
+            this.flowField.apply(version, offset, reader.readInteger(FlowField.DIRECTION_BITS));
+        }
+    }
+
+    private void decodeSnapshot(BlockReader reader, int round) {
+        this.decodeHqSurroundings(reader);
+        this.surroundingsSeenRound = Math.max(this.surroundingsSeenRound, round);
+        this.decodeWallDone(reader.readBoolean(), round);
+
+        if (reader.readBoolean()) {
+            this.decodeEnemyBase(reader.readPackedLocation(), round);
+            return;
+        }
+
+        // Rule out symmetries the HQ has; never bring back one we've already ruled out ourselves.
+        if (this.symmetry.restrict(reader.readInteger(3))) this.refreshEnemyCandidates();
+    }
+
+    /**
+     * Search backwards from the last posted block, at most COMMS_SNAPSHOT_SEARCH blocks, for the latest block carrying
+     * one of our snapshots; returns its round, or -1 if there is none. Like catchUp, the search gives up (and returns
+     * -1) once the turn is down to COMMS_BYTECODE_RESERVE bytecodes.
+     */
+    private int findSnapshot(RobotController rc) throws GameActionException {
+        int oldest = Math.max(2, rc.getRoundNum() - Config.COMMS_SNAPSHOT_SEARCH);
+        for (int round = rc.getRoundNum() - 1; round >= oldest; round--) {
+            if (Clock.getBytecodesLeft() <= Config.COMMS_BYTECODE_RESERVE) return -1;
+
+            for (Transaction tr : rc.getBlock(round)) {
+                if (tr == null || tr.getMessage() == null) continue;
+
+                int[] data = tr.getMessage();
+                if (Bitconnect.checksum(data, 0, 6, rc.getTeam()) == data[6] && Bitconnect.containsSnapshot(this.reader, data))
+                    return round;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Check whether a verified payload carries a snapshot, skipping over the bodies of the other messages with the
+     * given reader.
+     */
+    static boolean containsSnapshot(BlockReader reader, int[] data) {
+        reader.reset(data);
+        int numMessages = reader.readInteger(3);
+        reader.readBoolean();
+
+        for (int index = 0; index < numMessages; index++) {
+            switch (MessageType.fromId(reader.readInteger(MESSAGE_TYPE_BITS))) {
+                case SNAPSHOT:
+                    return true;
+                case HQ_SURROUNDINGS:
+                    reader.skip(12 * (reader.readInteger(4) + 1));
+                    break;
+                case ENEMY_BASE:
+                case NO_ENEMY_BASE:
+                    reader.skip(12);
+                    break;
+                case WALL_DONE:
+                    reader.skip(1);
+                    break;
+                case SOUP_FIELDS:
+                    reader.skip((SoupMap.REGION_BITS + SoupMap.LEVEL_BITS) * reader.readInteger(4));
+                    break;
+                case FLOW_FIELD:
+                    reader.skip(FlowField.VERSION_BITS);
+                    if (reader.readBoolean()) reader.skip(4 + FlowField.SIZE * reader.readInteger(4));
+                    else reader.skip((FlowField.OFFSET_BITS + FlowField.DIRECTION_BITS) * reader.readInteger(4));
+                    break;
+                case HEARTBEAT:
+                    reader.skip(16 + 12 + 4 + 16);
+                    break;
+                default:
+                    return false;
+            }
+        }
+
+        return false;
+    }
+
+    private void decodeWallDone(boolean done, int round) {
+        int value = done ? 1 : 0;
+        this.sendQueue.remove(MessageType.WALL_DONE, 0, false, value, value);
+
+        // Blocks before a snapshot are read after it, so an older status mustn't overwrite a newer one.
+        if (round < this.wallDoneSeenRound) return;
+
+        if (this.wallDone == done) {
+            this.wallDoneSeenRound = Math.max(this.wallDoneSeenRound, round);
+        } else {
+            this.wallDone = done;
+            this.wallDoneSeenRound = round;
+        }
+    }
+
+    private void decodeHqSurroundings(BlockReader reader) {
+        // Read the walls followed by the HQ into scratch space, noting whether anything differs from what we have.
+        int count = reader.readInteger(4) + 1;
+        boolean changed = count != this.numPackedSurroundings;
+        for (int i = 0; i < count; i++) {
+            int packed = reader.readPackedLocation();
+            this.scratchSurroundings[i] = packed;
+            changed |= packed != this.packedSurroundings[i];
+        }
+
+        if (!changed) return;
+
+        DynamicArray<MapLocation> newWalls = new DynamicArray<>(count - 1);
+        for (int i = 0; i < count - 1; i++) {
+            this.packedSurroundings[i] = this.scratchSurroundings[i];
+            newWalls.add(Bitconnect.unpackLocation(this.scratchSurroundings[i]));
+        }
+        this.packedSurroundings[count - 1] = this.scratchSurroundings[count - 1];
+        this.numPackedSurroundings = count;
+
+        MapLocation oldHq = this.hq;
+        this.hq = Bitconnect.unpackLocation(this.scratchSurroundings[count - 1]);
+        this.walls = newWalls;
+
+        if (oldHq == null) this.handlePotentialEnemyLocs(this.hq);
+    }
+
+    /** Drop any HQ surroundings we have queued which say the same as the copy just decoded off the chain. */
+    private void dropQueuedSurroundings() {
+        if (!this.sendQueue.has(MessageType.HQ_SURROUNDINGS)) return;
+
+        for (int i = this.sendQueue.size() - 1; i >= 0; i--) {
+            Message msg = this.sendQueue.get(i);
+            if (msg.type() == MessageType.HQ_SURROUNDINGS && this.matchesSurroundings((HQSurroundings) msg))
+                this.sendQueue.removeAt(i);
+        }
+    }
+
+    /** True if the given surroundings are the walls and HQ we hold (in packed form), as last decoded or notified. */
+    private boolean matchesSurroundings(HQSurroundings msg) {
+        DynamicArray<MapLocation> walls = msg.walls();
+        if (walls.size() + 1 != this.numPackedSurroundings) return false;
+        for (int i = 0; i < walls.size(); i++) {
+            if (Bitconnect.packLocation(walls.get(i)) != this.packedSurroundings[i]) return false;
+        }
+
+        return Bitconnect.packLocation(msg.hq()) == this.packedSurroundings[walls.size()];
+    }
+
+    private void decodeHeartbeat(BlockReader reader) {
+        int id = reader.readId();
+        int packed = reader.readPackedLocation();
+        RobotType type = ROBOT_TYPES[reader.readInteger(4)];
+        int round = reader.readInteger(16);
+
+        // A building's own heartbeat is already out of date once a newer one is on the chain.
+        this.sendQueue.remove(MessageType.HEARTBEAT, id, false, Integer.MIN_VALUE, round);
+
+        // The registry ignores heartbeats older than the one it has, since payloads may be decoded out of order.
+        HeartbeatRegistry registry = this.buildings[type.ordinal()];
+        if (registry != null) registry.update(id, packed, round);
+    }
+
     /**
      * Send messages optimally by packing multiple messages into a single transaction.
      */
@@ -469,50 +1196,163 @@ public class Bitconnect {
         if (this.sendQueue.size() == 0) return false;
 
         BlockBuilder builder = new BlockBuilder();
-        DynamicArray<Message> fitMessages = new DynamicArray<>(8);
 
-        int availableBits = 32 * 6 - 3;
-        while (fitMessages.size() < 8 && this.sendQueue.size() > 0 && availableBits >= this.sendQueue.get(0).bitSize() + MESSAGE_TYPE_BITS) {
-            Message msg = this.sendQueue.get(0);
-            this.sendQueue.removeQuick(0);
-            fitMessages.add(msg);
-            availableBits -= msg.bitSize() + MESSAGE_TYPE_BITS;
-        }
-
-        if (fitMessages.size() == 0) return false;
-
-        builder.append(fitMessages.size(), 3);
-        for (Message msg : fitMessages) {
+        // Messages are only removed from the queue once they have actually been submitted, so nothing is reordered
+        // if we can't afford the transaction.
+        int numFit = this.packTransaction();
+        if (numFit == 0) return false;
+
+        // High-priority messages are always at the front of the queue, so the first packed message decides the flag.
+        builder.append(numFit, 3);
+        builder.append(this.sendQueue.get(this.packedIndices[0]).type().isHighPriority());
+        int usedBits = HEADER_BITS, maxAttempts = 0;
+        Message[] messages = new Message[numFit];
+        for (int i = 0; i < numFit; i++) {
+            Message msg = this.sendQueue.get(this.packedIndices[i]);
             builder.append(msg.type().id(), MESSAGE_TYPE_BITS);
             msg.write(builder);
+            usedBits += msg.bitSize() + MESSAGE_TYPE_BITS;
+            maxAttempts = Math.max(maxAttempts, msg.attempts);
+            messages[i] = msg;
         }
 
         int[] result = builder.finish();
         result[result.length - 1] = Bitconnect.checksum(result, 0, 6, rc.getTeam());
-        if (rc.canSubmitTransaction(result, Config.COMMS_COST)) {
-            System.out.println(rc.getType() + " spent money!");
-            rc.submitTransaction(result, Config.COMMS_COST);
+
+        int bid = this.estimateBid(rc.getRoundNum());
+        if (messages[0].type().isHighPriority()) bid += Config.COMMS_HIGH_PRIORITY_BID_BONUS;
+        bid = Math.min(bid + maxAttempts * Config.COMMS_RETRY_BID_BONUS, Config.COMMS_MAX_BID);
+
+        if (rc.canSubmitTransaction(result, bid)) {
+            Utils.print(rc.getType() + " spent money! (" + bid + " soup, " + usedBits + "/" + PAYLOAD_BITS + " bits)");
+            rc.submitTransaction(result, bid);
+            this.sendQueue.removeAll(this.packedIndices, numFit);
+
+            // Keep track of the transaction until we see it on the chain; if the pending list is full, the oldest
+            // transaction is assumed to have made it.
+            if (this.pending.isFull()) this.pending.poll();
+            this.pending.add(new PendingTransaction(rc.getRoundNum(), result, messages));
             return true;
         } else {
-            // Add messages back to send queue so we can try again later.
-            for (Message msg : fitMessages) this.sendQueue.add(msg);
-
             return false;
         }
     }
 
+    /**
+     * Choose the messages for a single transaction, storing their send order positions in packedIndices. Walks the
+     * whole queue in send order and takes every message which still fits, so small messages further back fill the
+     * space left around large ones without ever skipping a message that would have fit. Returns the number chosen.
+     */
+    private int packTransaction() {
+        int numFit = 0;
+        int availableBits = PAYLOAD_BITS - HEADER_BITS;
+        int queued = this.sendQueue.size();
+        for (int i = 0; i < queued && numFit < MAX_MESSAGES_PER_TRANSACTION && availableBits > MESSAGE_TYPE_BITS; i++) {
+            int cost = this.sendQueue.get(i).bitSize() + MESSAGE_TYPE_BITS;
+            if (cost > availableBits) continue;
+
+            this.packedIndices[numFit++] = i;
+            availableBits -= cost;
+        }
+
+        return numFit;
+    }
+
+    /**
+     * Estimate the smallest bid likely to be included in the next block: the highest price any of the last
+     * COMMS_BID_WINDOW blocks needed. Falls back to COMMS_COST if we haven't scanned any recent blocks.
+     */
+    private int estimateBid(int round) {
+        int bid = 0;
+        for (int i = 0; i < this.recentPrices.length; i++) {
+            if (this.recentPriceRounds[i] >= round - this.recentPrices.length && this.recentPrices[i] > bid)
+                bid = this.recentPrices[i];
+        }
+
+        return bid == 0 ? Config.COMMS_COST : bid;
+    }
+
+    /**
+     * Called once the block for the given round has been scanned; any of our transactions which should have shown up
+     * by now were probably outbid, so put their undelivered messages back at the front of the queue to be resent with
+     * a higher bid. The transactions stay pending, in case they are included after all.
+     */
+    private void requeueOutbid(int scannedRound) {
+        for (int i = 0; i < this.pending.size(); i++) {
+            PendingTransaction trans = this.pending.get(i);
+            if (trans.round > scannedRound - Config.COMMS_CONFIRM_ROUNDS + 1) break;
+            if (trans.requeued) continue;
+
+            trans.requeued = true;
+            for (int j = trans.messages.length - 1; j >= 0; j--) {
+                if (trans.messages[j].delivered) continue;
+
+                trans.messages[j].attempts++;
+                this.sendQueue.addFirst(trans.messages[j]);
+            }
+        }
+    }
+
     // Compute possible enemy HQ locations based on our HQ location.
     private void handlePotentialEnemyLocs(MapLocation hq) {
         if (this.enemyHq != null) return;
-        this.possibleEnemyHqs = Bitconnect.computeEnemyLocations(hq, this.width, this.height);
+        this.possibleEnemyHqs = this.symmetry.candidates(hq);
     }
 
-    /** Scan recent blocks that have been advertised. */
-    public void scanRecent(RobotController rc, int pastRounds) throws GameActionException {
-        for (int round = Math.max(2, rc.getRoundNum() - pastRounds); round < rc.getRoundNum(); round++) {
-            Transaction[] trans = rc.getBlock(round);
-            for (Transaction tr : trans) this.handleTransaction(rc, tr);
+    /**
+     * Read the block at the scan cursor into the backlog and advance the cursor, skipping the rounds between the early
+     * and recent windows.
+     */
+    private void scanNext(RobotController rc) throws GameActionException {
+        int included = 0, cheapest = Integer.MAX_VALUE;
+        for (Transaction tr : rc.getBlock(this.scanCursor)) {
+            if (tr == null) continue;
+
+            included++;
+            if (tr.getCost() < cheapest) cheapest = tr.getCost();
+            this.enqueueTransaction(rc, tr, this.scanCursor);
+        }
+
+        // A block with free space would have taken any bid; a full one needed to beat its cheapest transaction.
+        int slot = this.scanCursor % this.recentPrices.length;
+        this.recentPrices[slot] = included < GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK ? 1 : cheapest + 1;
+        this.recentPriceRounds[slot] = this.scanCursor;
+
+        this.requeueOutbid(this.scanCursor);
+
+        this.scanCursor++;
+        if (this.scanCursor > EARLY_WINDOW_END && this.scanCursor < this.recentWindowStart)
+            this.scanCursor = this.recentWindowStart;
+    }
+
+    /**
+     * Pull blocks from the scan cursor into the backlog while it has room for a full block, and decode backlogged
+     * payloads (high-priority first) while more than COMMS_BYTECODE_RESERVE bytecodes remain. Anything left over is
+     * picked up again on the next call. Returns true if every posted block has been read and decoded.
+     */
+    public boolean catchUp(RobotController rc) throws GameActionException {
+        int lastRound = rc.getRoundNum() - 1;
+        while (Clock.getBytecodesLeft() > Config.COMMS_BYTECODE_RESERVE) {
+            if (this.scanCursor <= lastRound && this.backlogSize() + GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK <= Config.COMMS_BACKLOG_SIZE) {
+                this.scanNext(rc);
+            } else if (this.backlogSize() > 0) {
+                this.decodeNext();
+            } else {
+                break;
+            }
         }
+
+        return this.scanCursor > lastRound && this.backlogSize() == 0;
+    }
+
+    /** The number of payloads which have been read off the chain but not decoded yet. */
+    public int backlogSize() {
+        return this.highBacklog.size() + this.lowBacklog.size();
+    }
+
+    /** The last round whose block has been read into the backlog (though not necessarily decoded yet). */
+    public int lastScannedRound() {
+        return this.scanCursor - 1;
     }
 
     /**
@@ -521,28 +1361,23 @@ public class Bitconnect {
     public void updateForTurn(RobotController rc) throws GameActionException {
         // No blocks are posted on round 1, so skip it.
         if (rc.getRoundNum() == 1) return;
+        this.round = rc.getRoundNum();
+
+        // Queue any soup levels we've seen change which the team doesn't know about yet. Regions stay dirty until they
+        // show up on the chain, so each flush carries everything still outstanding and replaces any unsent one.
+        if (this.soupMap.hasDirty() && this.round - this.lastSoupFlush >= Config.SOUP_FIELD_FLUSH_INTERVAL) {
+            this.sendQueue.add(new SoupFieldsMessage(this.soupMap));
+            this.lastSoupFlush = this.round;
+        }
 
         // Send operations; repeatedly send until the clustered send fails.
         while (this.clusteredSend(rc)) ;
 
-        // Recieve operations.
-        for (Transaction transaction : rc.getBlock(rc.getRoundNum() - 1))
-            this.handleTransaction(rc, transaction);
+        // Recieve operations; normally just the previous block, but also any history we haven't caught up on yet.
+        this.catchUp(rc);
 
         // Timeout heartbeats.
-        for (int i = 0; i < designSchools.size(); i++) {
-            if (designSchools.get(i).round < rc.getRoundNum() - HEARTBEAT_TIMEOUT) {
-                designSchools.removeQuick(i);
-                i--;
-            }
-        }
-
-        for (int i = 0; i < fulfillmentCenters.size(); i++) {
-            if (fulfillmentCenters.get(i).round < rc.getRoundNum() - HEARTBEAT_TIMEOUT) {
-                fulfillmentCenters.removeQuick(i);
-                i--;
-            }
-        }
+        for (HeartbeatRegistry registry : this.buildings) if (registry != null) registry.expire(rc.getRoundNum());
     }
 
     /**
@@ -567,14 +1402,20 @@ public class Bitconnect {
     }
 
     /**
-     * Returns a list of design schools that have broadcasted their existence recently.
+     * Returns the buildings of the given type that have broadcasted their existence recently; null for the HQ and
+     * for units, which don't send heartbeats.
      */
-    public DynamicArray<HeartbeatMessage> designSchools() { return designSchools; }
+    public HeartbeatRegistry buildings(RobotType type) { return this.buildings[type.ordinal()]; }
 
     /**
-     * Returns a list of fulfillment centers that have broadcasted their existence recently.
+     * Returns the design schools that have broadcasted their existence recently.
      */
-    public DynamicArray<HeartbeatMessage> fulfillmentCenters() { return fulfillmentCenters; }
+    public HeartbeatRegistry designSchools() { return this.buildings(RobotType.DESIGN_SCHOOL); }
+
+    /**
+     * Returns the fulfillment centers that have broadcasted their existence recently.
+     */
+    public HeartbeatRegistry fulfillmentCenters() { return this.buildings(RobotType.FULFILLMENT_CENTER); }
 
     /**
      * The list of possible enemy locations; null if we don't know our own HQ locations.
@@ -587,36 +1428,150 @@ public class Bitconnect {
         return this.wallDone;
     }
 
+    /**
+     * The team-wide soup density map.
+     */
+    public SoupMap soupMap() {
+        return this.soupMap;
+    }
+
+    /**
+     * The HQ's flow field home, as last broadcast.
+     */
+    public FlowField flowField() {
+        return this.flowField;
+    }
+
+    /**
+     * The direction to head from the given location to get home to the HQ by the HQ's flow field, or null if there is
+     * none covering the location.
+     */
+    public Direction homeDirection(MapLocation from) {
+        if (this.hq == null) return null;
+        return this.flowField.direction(this.hq, from);
+    }
+
+    /**
+     * Broadcast the coverage and hints of a freshly computed flow field as the next version, replacing any batch not
+     * yet sent. Only the HQ calls this.
+     */
+    public void notifyFlowField(FlowField field) {
+        int[] offsets = new int[FlowField.TILES], directions = new int[FlowField.TILES];
+        int count = field.writeHints(offsets, directions);
+        int version = (this.flowField.version() + 1) & ((1 << FlowField.VERSION_BITS) - 1);
+
+        this.sendQueue.removeAll(MessageType.FLOW_FIELD);
+        int[] rows = new int[FlowField.SIZE];
+        for (int row = 0; row < FlowField.SIZE; row++) rows[row] = field.row(row);
+        int chunk = 0;
+        for (int start = 0; start < FlowField.SIZE; start += FlowFieldMessage.MAX_ROWS) {
+            int size = Math.min(FlowField.SIZE - start, FlowFieldMessage.MAX_ROWS);
+            this.sendQueue.add(new FlowFieldMessage(version, chunk++, rows, start, size));
+        }
+        for (int start = 0; start < count; start += FlowFieldMessage.MAX_HINTS) {
+            int size = Math.min(count - start, FlowFieldMessage.MAX_HINTS);
+            this.sendQueue.add(new FlowFieldMessage(version, chunk++, offsets, directions, start, size));
+        }
+    }
+
+    /**
+     * Record the soup sensed on the given tiles (amounts[i] on soup[i]) in the soup map; changed regions are broadcast
+     * on a later turn.
+     */
+    public void notifySoupSensed(RobotController rc, MapLocation[] soup, int[] amounts) {
+        this.soupMap.observe(rc, soup, amounts);
+    }
+
     public void notifyHeartbeat(int id, MapLocation location, RobotType type, int round) {
         this.sendQueue.add(new HeartbeatMessage(id, location, type, round));
     }
 
+    /**
+     * Broadcast a snapshot of all the shared state we know (HQ surroundings, wall status, enemy HQ candidates), so new
+     * units can bootstrap from it. Buildings' own heartbeats aren't repeated; new units read far enough back to hear
+     * them. Once a snapshot is on the chain, the HQ's retransmissions of the wall status and enemy HQ are skipped
+     * (see notifyEnemyBase). Only the HQ calls this.
+     */
+    public void notifySnapshot() {
+        if (this.hq == null || this.walls == null) return;
+
+        StateSnapshot snapshot = new StateSnapshot(new HQSurroundings(this.walls, this.hq), this.wallDone, this.enemyHq,
+                this.symmetry.possibleMask());
+        if (snapshot.bitSize() + MESSAGE_TYPE_BITS > PAYLOAD_BITS - HEADER_BITS) return;
+        this.sendQueue.add(snapshot);
+    }
+
     public void notifyHqSurroundings(MapLocation hq, DynamicArray<MapLocation> walls) {
         if (this.hq == null) this.handlePotentialEnemyLocs(hq);
 
         this.hq = hq;
         this.walls = walls;
+        for (int i = 0; i < walls.size(); i++) this.packedSurroundings[i] = Bitconnect.packLocation(walls.get(i));
+        this.packedSurroundings[walls.size()] = Bitconnect.packLocation(hq);
+        this.numPackedSurroundings = walls.size() + 1;
+
         this.sendQueue.add(new HQSurroundings(walls, hq));
     }
 
+    /**
+     * Rule out a possible enemy HQ location. Nothing is sent if the enemy HQ is already known or the location was
+     * already ruled out (by us or anyone else on the chain). Ruling out the last candidate means evidence ruled out the
+     * right symmetry, so the inference starts over (see SymmetryInference.eliminateHqAt).
+     */
     public void notifyNoEnemyBase(MapLocation noBase) {
+        if (this.enemyHq != null) return;
+
         if (this.possibleEnemyHqs != null) {
-            int enemyIdx = this.possibleEnemyHqs.indexOf(noBase);
-            if (enemyIdx != -1) this.possibleEnemyHqs.removeQuick(enemyIdx);
-            if (this.possibleEnemyHqs.size() == 1) this.notifyEnemyBase(this.possibleEnemyHqs.get(0));
+            if (!this.possibleEnemyHqs.contains(noBase)) return;
+
+            this.symmetry.eliminateHqAt(this.hq, noBase);
+            this.possibleEnemyHqs = this.symmetry.candidates(this.hq);
         }
 
         this.sendQueue.add(new LocationMessage(noBase, MessageType.NO_ENEMY_BASE));
     }
 
+    /**
+     * Record a tile's elevation, as sensed during normal scanning, as evidence about the map's symmetry. If
+     * the evidence rules out the last symmetry putting the enemy HQ at some location, that location is broadcast as
+     * ruled out, just like after checking it in person. Even if that leaves one candidate, the enemy HQ is only
+     * broadcast once someone sees it there.
+     */
+    public void notifyTileSensed(RobotController rc, MapLocation loc, int elevation) {
+        if (this.enemyHq != null || this.possibleEnemyHqs == null) return;
+
+        SymmetryInference.Symmetry ruledOut = this.symmetry.observe(loc, elevation, rc.getRoundNum(), this.hq);
+        if (ruledOut == null) return;
+
+        MapLocation mirrored = ruledOut.reflect(this.hq, this.width, this.height);
+        this.possibleEnemyHqs = this.symmetry.candidates(this.hq);
+        if (this.possibleEnemyHqs.contains(mirrored)) return;
+
+        this.sendQueue.add(new LocationMessage(mirrored, MessageType.NO_ENEMY_BASE));
+    }
+
+    /**
+     * Broadcast the enemy HQ location. Skipped if the chain already carries this location (in an ENEMY_BASE message or
+     * a snapshot) from within the last COMMS_DEDUP_WINDOW rounds, so periodic retransmissions only cost soup when
+     * they're actually needed.
+     */
     public void notifyEnemyBase(MapLocation enemyHq) {
+        if (enemyHq.equals(this.enemyHq) && this.enemyBaseSeenRound >= this.round - Config.COMMS_DEDUP_WINDOW) return;
+
         this.enemyHq = enemyHq;
         this.possibleEnemyHqs = new DynamicArray<>(1);
         this.possibleEnemyHqs.add(enemyHq);
+        // The enemy base supersedes any eliminations we haven't sent yet.
+        this.sendQueue.removeAll(MessageType.NO_ENEMY_BASE);
         this.sendQueue.add(new LocationMessage(enemyHq, MessageType.ENEMY_BASE));
     }
 
+    /**
+     * Broadcast the wall status. Like notifyEnemyBase, skipped if the chain recently carried the same status.
+     */
     public void notifyWallDone(boolean wallDone) {
+        if (this.wallDone == wallDone && this.wallDoneSeenRound >= this.round - Config.COMMS_DEDUP_WINDOW) return;
+
         this.wallDone = wallDone;
         this.sendQueue.add(new BooleanMessage(wallDone, MessageType.WALL_DONE));
     }
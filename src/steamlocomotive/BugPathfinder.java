@@ -33,56 +33,86 @@ public class BugPathfinder {
                 default: return dir;
             }
         }
+
+        public FollowingDirection opposite() {
+            return this == CLOCKWISE ? COUNTERCLOCKWISE : CLOCKWISE;
+        }
     }
 
-    /** A pair of a map location and direction. */
-    private static class LocationAndDirection {
-        MapLocation location;
-        Direction heading;
+    /**
+     * A set of (location, heading) pairs, stored as a 64x64x8 bitset keyed by the packed pair. Each word of the bitset
+     * carries the generation it was last written in, and words from older generations read as empty, so clearing the
+     * whole set is just starting a new generation. Membership checks and inserts are O(1) and never allocate.
+     */
+    private static class VisitedSet {
+        // 64 * 64 locations * 8 headings bits, 32 to a word.
+        private static final int WORDS = (64 * 64 * 8) >>> 5;
+
+        private final int[] words, generations;
+        private int generation;
 
-        public LocationAndDirection(MapLocation loc, Direction heading) {
-            this.location = loc;
-            this.heading = heading;
+        VisitedSet() {
+            this.words = new int[WORDS];
+            this.generations = new int[WORDS];
+            this.generation = 0;
         }
 
-        @Override
-        public int hashCode() {
-            return location.hashCode() ^ heading.hashCode();
+        /** Empty the set by starting a new generation. */
+        void clear() {
+            this.generation++;
         }
 
-        @Override
-        public boolean equals(Object other) {
-            if(other == null) {
-                return false;
-            }
-            if(other instanceof LocationAndDirection) {
-                LocationAndDirection loc = (LocationAndDirection) other;
-                return this.heading == loc.heading && this.location.x == loc.location.x && this.location.y == loc.location.y;
+        /** Add the pair to the set; returns false if it was already there. The heading must not be CENTER. */
+        boolean add(MapLocation loc, Direction heading) {
+            int key = ((loc.x | (loc.y << 6)) << 3) | heading.ordinal();
+            int word = key >>> 5, bit = 1 << (key & 31);
+
+            if (this.generations[word] != this.generation) {
+                this.generations[word] = this.generation;
+                this.words[word] = 0;
             }
-            return false;
+
+            if ((this.words[word] & bit) != 0) return false;
+            this.words[word] |= bit;
+            return true;
         }
     }
 
+    // Locations and headings visited while following the current obstacle. Shared by all of a unit's pathfinders,
+    // since only one follows an obstacle at a time; each new obstacle starts a new generation.
+    private static VisitedSet wallPerimeter;
+
+    // Estimated steps saved by following obstacles the other way round from the preferred direction, for tuning.
+    private static int stepsSaved = 0;
+
     /** Create a bug pathfinder pathfinding to the given location. */
     public static BugPathfinder pathfindTo(MapLocation goal, FollowingDirection preferred, boolean allowAdjacent) {
         return new BugPathfinder(goal, preferred, allowAdjacent);
     }
 
-    /** Can move wrapper which also checks for flooding. */
+    /** The estimated number of steps this unit has saved by picking the shorter way round obstacles. */
+    public static int stepsSaved() {
+        return stepsSaved;
+    }
+
+    /** Can move wrapper which also checks the target isn't flooded, and won't be soon (see FloodForecast). */
     public static boolean canMoveF(RobotController rc, Direction dir) {
-        MapLocation target = rc.getLocation().add(dir);
-        boolean flooded = false;
-        try {
-            flooded = rc.senseFlooding(target);
-        } catch (GameActionException ex) { }
+        if (!rc.canMove(dir)) return false;
 
-        return rc.canMove(dir) && !flooded;
+        try {
+            return FloodForecast.safeToEnter(rc, rc.getLocation().add(dir));
+        } catch (GameActionException ex) {
+            return true;
+        }
     }
 
     // The goal location we want to get close to.
     private final MapLocation goal;
+    // The location we are currently heading for; the goal unless a planner has handed us a waypoint on the way there.
+    private MapLocation waypoint;
 
-    // The direction we are following obstacles.
+    // The direction we prefer to follow obstacles, and the direction we are following the current one.
+    private final FollowingDirection preferredDirection;
     private FollowingDirection followDirection;
     // If we are currently following an obstacle.
     private boolean following;
@@ -92,11 +122,11 @@ public class BugPathfinder {
     private int obstacleDistance;
     // If true, then we can just pathfind to an adjacent tile to the goal.
     private boolean allowAdjacent;
-    // List of locations that we have visited along a wall.
-    private DynamicArray<LocationAndDirection> wallPerimeter;
 
-    private BugPathfinder(MapLocation goal, FollowingDirection preferredDirection, boolean allowAdjacent) {
+    protected BugPathfinder(MapLocation goal, FollowingDirection preferredDirection, boolean allowAdjacent) {
         this.goal = goal;
+        this.waypoint = goal;
+        this.preferredDirection = preferredDirection;
         this.followDirection = preferredDirection;
         this.following = false;
         this.obstacleDistance = -1;
@@ -110,6 +140,49 @@ public class BugPathfinder {
         return loc.equals(this.goal) || (allowAdjacent && loc.isAdjacentTo(this.goal));
     }
 
+    /** True if we are currently following an obstacle. */
+    protected boolean isFollowing() { return following; }
+
+    /** The location we are currently heading for on the way to the goal. */
+    protected MapLocation waypoint() { return waypoint; }
+
+    /** Head for the given waypoint instead, dropping any obstacle we are following towards the old one. */
+    protected void setWaypoint(MapLocation waypoint) {
+        this.waypoint = waypoint;
+        this.following = false;
+    }
+
+    /** The squared distance to the waypoint at which we hit the obstacle we are following. */
+    protected int obstacleDistance() { return obstacleDistance; }
+
+    /** Stop following the current obstacle, so the next move heads straight for the goal again. */
+    protected void stopFollowing() { this.following = false; }
+
+    /**
+     * Estimate how many moves it takes to get to the waypoint by following the obstacle just hit from the given
+     * location, setting off along the given heading in the given direction. Returns -1 if there's no telling, in which
+     * case we keep to the preferred direction; plain bug pathfinding knows nothing of the terrain, so always does.
+     */
+    protected int estimateFollow(MapLocation loc, Direction heading, FollowingDirection direction) throws GameActionException {
+        return -1;
+    }
+
+    /**
+     * Follow the obstacle just hit whichever way round is estimated to be shorter. The choice only lasts for this
+     * obstacle; the next one starts from the preferred direction again.
+     */
+    private void chooseFollowDirection(MapLocation loc) throws GameActionException {
+        this.followDirection = this.preferredDirection;
+        int preferred = this.estimateFollow(loc, this.heading, this.preferredDirection);
+        if (preferred < 0) return;
+
+        int other = this.estimateFollow(loc, this.heading, this.preferredDirection.opposite());
+        if (other < 0 || other >= preferred) return;
+
+        this.followDirection = this.preferredDirection.opposite();
+        stepsSaved += preferred - other;
+    }
+
     /**
      * Find the move towards the goal state given the current location and a function for determining if a tile is walkable.
      * Returns Direction.CENTER if no further actions are necessary, or null if no actions are currently available.
@@ -117,14 +190,15 @@ public class BugPathfinder {
     public Direction findMove(MapLocation loc, Utils.GameFunction<Direction, Boolean> walkable) throws GameActionException {
         // Already found the goal dummy.
         if (this.finished(loc)) return Direction.CENTER;
+        // Made it to the waypoint; on to the goal itself.
+        if (loc.equals(this.waypoint)) this.setWaypoint(this.goal);
 
         // Check if the wall is still around - could have been a unit!
         // The wall is orthogonal to the heading based on our follow direction.
         if (this.following) {
-            if(wallPerimeter.contains(new LocationAndDirection(loc, heading))) {
+            if (!wallPerimeter.add(loc, heading)) {
                 this.following = false;
             } else {
-                wallPerimeter.add(new LocationAndDirection(loc, heading));
                 Direction toWall = this.followDirection.alongWall(this.followDirection.alongWall(this.heading));
                 if (walkable.apply(toWall)) {
                     this.following = false;
@@ -133,7 +207,7 @@ public class BugPathfinder {
         }
 
         // See if we can just directly move in the direction of the goal.
-        Direction direct = loc.directionTo(this.goal);
+        Direction direct = loc.directionTo(this.waypoint);
         if (!this.following && walkable.apply(direct)) {
             return direct;
         }
@@ -141,14 +215,16 @@ public class BugPathfinder {
         // Otherwise, we can't directly go; if we aren't following, then we hit an obstacle, so start following.
         if (!this.following) {
             this.following = true;
-            this.wallPerimeter = new DynamicArray<>(30);
-            this.obstacleDistance = loc.distanceSquaredTo(this.goal);
+            if (wallPerimeter == null) wallPerimeter = new VisitedSet();
+            wallPerimeter.clear();
+            this.obstacleDistance = loc.distanceSquaredTo(this.waypoint);
             this.heading = direct;
+            this.chooseFollowDirection(loc);
         }
 
         // Need to follow the wall.
         // If we can directly move towards goal and we are closer to goal, then do that and reset obstacle.
-        if (loc.distanceSquaredTo(this.goal) <= this.obstacleDistance && walkable.apply(direct)) {
+        if (loc.distanceSquaredTo(this.waypoint) <= this.obstacleDistance && walkable.apply(direct)) {
             this.following = false;
             return direct;
         }
@@ -11,10 +11,192 @@ public class Config {
     // GLOBAL CONFIG
 
     /**
-     * The amount of soup used for communications (for now).
+     * The maximum number of buildings of each type tracked from heartbeats.
+     */
+    public static final int HEARTBEAT_REGISTRY_CAPACITY = 32;
+
+    /**
+     * Tiles are only recorded as symmetry evidence during this many rounds, before digging, mining and the rising
+     * water have changed the map much.
+     */
+    public static final int SYMMETRY_EVIDENCE_ROUNDS = 300;
+
+    /**
+     * Tiles within this (squared) distance of our HQ or any possible enemy HQ aren't used as symmetry evidence, since
+     * that's where units dig and mine the most.
+     */
+    public static final int SYMMETRY_HQ_EXCLUSION_RADIUS_SQUARED = 50;
+
+    /**
+     * Mirrored tiles whose elevations differ by at most this much still count as matching.
+     */
+    public static final int SYMMETRY_ELEVATION_TOLERANCE = 2;
+
+    /**
+     * The number of mismatching mirrored tile pairs needed to rule out a symmetry.
+     */
+    public static final int SYMMETRY_MISMATCH_THRESHOLD = 3;
+
+    /**
+     * The most sensed tiles a unit checks against their mirror images each turn.
+     */
+    public static final int SYMMETRY_CHECKS_PER_TURN = 30;
+
+    /**
+     * Soup map regions with at least this much soup in view are medium density, and at least the second are rich.
+     */
+    public static final int SOUP_FIELD_MEDIUM = 300;
+    public static final int SOUP_FIELD_RICH = 1500;
+
+    /**
+     * How far (in percent) the soup seen in a region has to fall below its level's threshold before a unit lowers it.
+     */
+    public static final int SOUP_FIELD_HYSTERESIS = 50;
+
+    /**
+     * The minimum number of rounds between a unit's broadcasts of soup map changes.
+     */
+    public static final int SOUP_FIELD_FLUSH_INTERVAL = 10;
+
+    /**
+     * The amount of soup bid for communications when we haven't seen any recent blocks to estimate prices from.
      */
     public static final int COMMS_COST = 3;
 
+    /**
+     * The number of recent blocks whose prices are used to estimate the bid for a transaction.
+     */
+    public static final int COMMS_BID_WINDOW = 10;
+
+    /**
+     * Extra soup bid for transactions carrying high-priority messages.
+     */
+    public static final int COMMS_HIGH_PRIORITY_BID_BONUS = 1;
+
+    /**
+     * Extra soup bid for each time a message in the transaction has previously been outbid.
+     */
+    public static final int COMMS_RETRY_BID_BONUS = 2;
+
+    /**
+     * The most soup we'll ever bid on a single transaction.
+     */
+    public static final int COMMS_MAX_BID = 20;
+
+    /**
+     * The number of blocks we wait to see a submitted transaction in before assuming it was outbid and resending it.
+     */
+    public static final int COMMS_CONFIRM_ROUNDS = 2;
+
+    /**
+     * The maximum number of submitted transactions we track until they show up on the chain, including ones we've taken
+     * for outbid, which can still be included later.
+     */
+    public static final int COMMS_MAX_PENDING = 8;
+
+    /**
+     * The number of recent rounds a newly created unit reads from the blockchain to catch up on shared state.
+     */
+    public static final int COMMS_SCAN_WINDOW = 50;
+
+    /**
+     * The number of rounds between the HQ's retransmissions of the enemy HQ location and wall status.
+     */
+    public static final int COMMS_RETRANSMIT_INTERVAL = 40;
+
+    /**
+     * A retransmission is skipped if the chain carried the same fact within this many rounds. It covers a whole
+     * retransmit interval, so a retransmission is only paid for when the previous copy never made it; new units hear
+     * the fact from the HQ's snapshots in between.
+     */
+    public static final int COMMS_DEDUP_WINDOW = COMMS_RETRANSMIT_INTERVAL;
+
+    /**
+     * The number of rounds between the HQ's snapshots of the shared state.
+     */
+    public static final int COMMS_SNAPSHOT_INTERVAL = 20;
+
+    /**
+     * How many blocks back a new unit looks for the latest snapshot before falling back to replaying history; a little
+     * more than the snapshot interval, so a snapshot which took a few rounds to get through is still found.
+     */
+    public static final int COMMS_SNAPSHOT_SEARCH = COMMS_SNAPSHOT_INTERVAL + 5;
+
+    /**
+     * Bytecodes left untouched when reading and decoding blocks, so the unit still has time to act on its turn.
+     */
+    public static final int COMMS_BYTECODE_RESERVE = 3000;
+
+    /**
+     * The maximum number of transactions read off the chain but not yet decoded; the scan cursor waits while it's full.
+     */
+    public static final int COMMS_BACKLOG_SIZE = 5 * GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK;
+
+    /**
+     * The maximum number of queued outgoing messages of each priority; the oldest are dropped once this is exceeded.
+     */
+    public static final int COMMS_SEND_QUEUE_SIZE = 32;
+
+    // PATHFINDING CONFIG
+
+    /**
+     * How far (in tiles along each axis) the local planner searches around the unit.
+     */
+    public static final int PLANNER_RADIUS = 4;
+
+    /**
+     * Minimum bytecodes left in the turn before the local planner is tried instead of plain bug pathfinding.
+     */
+    public static final int PLANNER_MIN_BYTECODES = 4000;
+
+    /**
+     * Bytecodes left untouched by the local planner; if the search gets this low it stops and takes the best tile found.
+     */
+    public static final int PLANNER_BYTECODE_RESERVE = 1500;
+
+    /**
+     * Squared distance to the goal beyond which a trip is long enough to run a path search over remembered terrain.
+     */
+    public static final int PATH_SEARCH_MIN_DISTANCE_SQUARED = 100;
+
+    /**
+     * Bytecodes left untouched at the end of the turn by the path search, so the turn still ends in time.
+     */
+    public static final int PATH_SEARCH_BYTECODE_RESERVE = 500;
+
+    /**
+     * How many steps along a found path the waypoint handed to the bug pathfinder is placed ahead of the unit.
+     */
+    public static final int PATH_WAYPOINT_SPACING = 5;
+
+    /**
+     * How many rounds ahead units check the water level when deciding whether a tile is safe to step onto.
+     */
+    public static final int FLOOD_FORECAST_ROUNDS = 5;
+
+    /**
+     * Extra cost the path search charges for a remembered tile which will be below the water level by the time we
+     * expect to get there.
+     */
+    public static final int FLOOD_RISK_PENALTY = 4;
+
+    /**
+     * How many moves along an obstacle the pathfinder walks out over the terrain, each way round, when choosing which
+     * way to follow it.
+     */
+    public static final int BUG_PROBE_STEPS = 16;
+
+    /**
+     * How often (in turns) units report the steps they've saved by following obstacles the shorter way round.
+     */
+    public static final int BUG_STATS_INTERVAL = 250;
+
+    /**
+     * How often (in rounds) a ground unit rescans all the terrain it can sense into its map memory; in between, it only
+     * scans tiles which just came into view and those next to it.
+     */
+    public static final int TERRAIN_FULL_SCAN_INTERVAL = 10;
+
     // HQ CONFIG
 
     /**
@@ -22,6 +204,21 @@ public class Config {
      */
     public static final int MIN_REFINERY_ROUND = 30;
 
+    /**
+     * The number of rounds between recomputations of the flow field home.
+     */
+    public static final int FLOW_FIELD_INTERVAL = 50;
+
+    /**
+     * Bytecodes left untouched at the end of the HQ's turn by the flow field computation.
+     */
+    public static final int FLOW_FIELD_BYTECODE_RESERVE = 1000;
+
+    /**
+     * The most flow field hints broadcast at once (nearest the HQ first); a few messages' worth.
+     */
+    public static final int FLOW_FIELD_MAX_HINTS = 3 * Bitconnect.FlowFieldMessage.MAX_HINTS;
+
     // MINER CONFIG
 
     /**
@@ -44,6 +241,18 @@ public class Config {
      */
     public static final int MAX_CLUSTER_DISTANCE = RobotType.MINER.sensorRadiusSquared;
 
+    /**
+     * Moves added to the travel distance when scoring soup clusters, so the field we're standing on doesn't score
+     * infinitely and small nearby fields don't always beat rich ones a few tiles further on.
+     */
+    public static final int SOUP_CLUSTER_TRAVEL_OVERHEAD = 5;
+
+    /**
+     * The percentage bonus the soup cluster a miner is already heading for gets, so it doesn't switch between fields of
+     * about the same value.
+     */
+    public static final int SOUP_CLUSTER_STICKINESS = 25;
+
     /**
      * The total number of miners that HQ builds, and then stops.
      */
@@ -151,5 +360,19 @@ public class Config {
 
     public static final int MIN_SOUP_NET_GUN = 250;
 
+    // DRONE CONFIG
+
+    /**
+     * How often (in rounds) a drone rescans everything it can sense; in between, it only scans tiles which just came
+     * into view.
+     */
+    public static final int DRONE_FULL_SCAN_INTERVAL = 10;
+
+    /**
+     * How far (squared) around itself a drone senses flooding again every turn, between full scans; further tiles are
+     * taken from its memory.
+     */
+    public static final int DRONE_WATER_RESENSE_RADIUS_SQUARED = 8;
+
     public static final boolean DEBUG = true;
 }
@@ -81,6 +81,9 @@ public strictfp class DeliveryDrone extends Unit {
     private MapLocation[] symmetryHq;
     // Index of which symmetric HQ location we are currently using
     private int enemyHqSymmetryIdx;
+    // Where we last scanned our surroundings from, and the round of the last full scan.
+    private MapLocation lastScanLocation;
+    private int lastFullScanRound;
 
     DynamicArray<Integer> allyDrones;
     DynamicArray<Integer> enemyDrones;
@@ -100,6 +103,8 @@ public strictfp class DeliveryDrone extends Unit {
         this.closestMinerNearSoup = false;
         this.closestFriendlyMinerElevation = 0;
         this.closestFriendlyLandscaper = null;
+        this.lastScanLocation = null;
+        this.lastFullScanRound = Integer.MIN_VALUE / 2;
     }
 
     public void run(RobotController rc, int turn) throws GameActionException {
@@ -187,7 +192,14 @@ public strictfp class DeliveryDrone extends Unit {
         if (this.pathfinder != null) rc.setIndicatorLine(rc.getLocation(), this.pathfinder.goal(), 0, 255, 0);
     }
 
+    /**
+     * Take this turn's perception snapshot and update what we know about our surroundings from it. The state handlers
+     * read robots and soup from the snapshot, so nothing here or there senses a robot twice.
+     */
     public void scanSurroundings(RobotController rc) throws GameActionException {
+        Perception perception = this.perception();
+        perception.sense(rc);
+
         // Reset closest water if it's... unflooded.
         if (closestWater != null && rc.canSenseLocation(closestWater) && !rc.senseFlooding(closestWater)) {
             closestWater = null;
@@ -195,7 +207,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         //Reset closestFriendlyMiner to null if it's not there anymore
         if (closestFriendlyMiner != null && rc.canSenseLocation(closestFriendlyMiner)) {
-            RobotInfo shouldBeMiner = rc.senseRobotAtLocation(closestFriendlyMiner);
+            RobotInfo shouldBeMiner = perception.robotAt(closestFriendlyMiner);
             if (shouldBeMiner == null) {
                 closestFriendlyMiner = null;
             } else if (shouldBeMiner.type != RobotType.MINER || shouldBeMiner.team != rc.getTeam()) {
@@ -204,7 +216,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         if (closestFriendlyLandscaper != null && rc.canSenseLocation(closestFriendlyLandscaper)) {
-            RobotInfo shouldBeLandscaper = rc.senseRobotAtLocation(closestFriendlyLandscaper);
+            RobotInfo shouldBeLandscaper = perception.robotAt(closestFriendlyLandscaper);
             if (shouldBeLandscaper == null) {
                 closestFriendlyLandscaper = null;
             } else if (shouldBeLandscaper.type != RobotType.LANDSCAPER || shouldBeLandscaper.team != rc.getTeam()) {
@@ -214,7 +226,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         //Reset closestEnemyLandUnit to null if outdated
         if (closestEnemyLandUnit != null && rc.canSenseLocation(closestEnemyLandUnit)) {
-            RobotInfo shouldBeEnemy = rc.senseRobotAtLocation(closestEnemyLandUnit);
+            RobotInfo shouldBeEnemy = perception.robotAt(closestEnemyLandUnit);
             if (shouldBeEnemy == null) {
                 closestEnemyLandUnit = null;
             } else if (shouldBeEnemy.team == rc.getTeam()) {
@@ -226,7 +238,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         //Reset closestEnemyNetGun to null if outdated
         if (closestEnemyNetGun != null && rc.canSenseLocation(closestEnemyNetGun)) {
-            RobotInfo shouldBeEnemy = rc.senseRobotAtLocation(closestEnemyNetGun);
+            RobotInfo shouldBeEnemy = perception.robotAt(closestEnemyNetGun);
             if (shouldBeEnemy == null) {
                 closestEnemyNetGun = null;
             } else if (shouldBeEnemy.team == rc.getTeam()) {
@@ -238,7 +250,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // Reset closestCow to null if outdated
         if (closestCow != null && rc.canSenseLocation(closestCow)) {
-            RobotInfo shouldBeCow = rc.senseRobotAtLocation(closestCow);
+            RobotInfo shouldBeCow = perception.robotAt(closestCow);
             if (shouldBeCow == null) {
                 closestCow = null;
             } else if (shouldBeCow.type != RobotType.COW) {
@@ -256,81 +268,24 @@ public strictfp class DeliveryDrone extends Unit {
             for (MapLocation loc : comms.potentialEnemyLocations()) {
                 if (!rc.canSenseLocation(loc)) continue;
 
-                RobotInfo robot = rc.senseRobotAtLocation(loc);
+                RobotInfo robot = perception.robotAt(loc);
                 if (robot == null || (robot.type != RobotType.HQ)) comms.notifyNoEnemyBase(loc);
             }
         }
 
-        // If you're wondering why the weird array gimmick, it's so we can use this
-        // inside the lambda. Unfortunate, yes.
-        // TODO: Optimize this away by inlining traverse sensable.
-        int[] waterDistance = new int[]{this.closestWater == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestWater)};
-        int[] cowDistance = new int[]{this.closestCow == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestCow)};
-        int[] enemyLandUnitDistance = new int[]{this.closestEnemyLandUnit == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestEnemyLandUnit)};
-        int[] enemyNetGunDistance = new int[]{this.closestEnemyNetGun == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestEnemyNetGun)};
-        int[] friendlyMinerDistance = new int[]{this.closestFriendlyMiner == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestFriendlyMiner)};
-        int[] friendlyLandscaperDistance = new int[]{this.closestFriendlyLandscaper == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestFriendlyLandscaper)};
-        int[] hardSoupDistance = new int[]{this.closestHardSoup == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestHardSoup)};
-
-        // Scan the sensable area for water for some dunking/fun in the sun action.
-        Utils.traverseSensable(rc, loc -> {
-            int dist = loc.distanceSquaredTo(rc.getLocation());
-
-            // Update closest water tile.
-            if (rc.senseFlooding(loc)) {
-                if (dist < waterDistance[0]) {
-                    this.closestWater = loc;
-                    waterDistance[0] = dist;
-                }
-
-                return;
-            }
+        int waterDistance = this.closestWater == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestWater);
+        int cowDistance = this.closestCow == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestCow);
+        int enemyLandUnitDistance = this.closestEnemyLandUnit == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestEnemyLandUnit);
+        int enemyNetGunDistance = this.closestEnemyNetGun == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestEnemyNetGun);
+        int friendlyMinerDistance = this.closestFriendlyMiner == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestFriendlyMiner);
+        int friendlyLandscaperDistance = this.closestFriendlyLandscaper == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestFriendlyLandscaper);
+        int hardSoupDistance = this.closestHardSoup == null ? Integer.MAX_VALUE : rc.getLocation().distanceSquaredTo(this.closestHardSoup);
 
-            // Update locations of robots and cows
-            RobotInfo nearbyRobot = rc.senseRobotAtLocation(loc);
-            if (nearbyRobot != null) {
-                if (nearbyRobot.type == RobotType.COW) {
-                    if (dist < cowDistance[0]) {
-                        this.closestCow = loc;
-                        cowDistance[0] = dist;
-                    }
-                } else if (nearbyRobot.team != rc.getTeam()) {
-                    if (nearbyRobot.type == RobotType.MINER || nearbyRobot.type == RobotType.LANDSCAPER) {
-                        if (dist < enemyLandUnitDistance[0]) {
-                            this.closestEnemyLandUnit = loc;
-                            enemyLandUnitDistance[0] = dist;
-                        }
-                    } else if (nearbyRobot.type == RobotType.HQ && comms.enemyHq() == null) {
-                        comms.notifyEnemyBase(loc);
-                    } else if (nearbyRobot.type == RobotType.NET_GUN) {
-                        if (dist < enemyNetGunDistance[0]) {
-                            this.closestEnemyNetGun = loc;
-                            enemyNetGunDistance[0] = dist;
-                        }
-                    }
-                } else if (nearbyRobot.type == RobotType.MINER) {
-                    if (dist < friendlyMinerDistance[0]) {
-                        this.closestFriendlyMiner = loc;
-                        friendlyMinerDistance[0] = dist;
-                        closestFriendlyMinerElevation = rc.senseElevation(loc);
-                    }
-                } else if (nearbyRobot.type == RobotType.LANDSCAPER && (comms.walls() == null || comms.walls().indexOf(loc) == -1)) {
-                    if (dist < friendlyLandscaperDistance[0]) {
-                        this.closestFriendlyLandscaper = loc;
-                        friendlyLandscaperDistance[0] = dist;
-                    }
-                }
-            } else if (rc.senseSoup(loc) > 0 && seemsInaccessible(rc, loc)) {
-                //TODO: Account for soup that is in water, but adjacent to land that's inaccessible to miners
-                if (dist < hardSoupDistance[0]) {
-                    this.closestHardSoup = loc;
-                    hardSoupDistance[0] = dist;
-                }
-            }
-        });
+        // Update locations of robots and cows. Robots move, so we look at all of them every turn.
+        for (RobotInfo info : perception.robots()) {
+            MapLocation loc = info.location;
+            int dist = rc.getLocation().distanceSquaredTo(loc);
 
-        RobotInfo[] nearbyRobots = rc.senseNearbyRobots();
-        for(RobotInfo info: nearbyRobots) {
             if (info.type == RobotType.DELIVERY_DRONE) {
                 if (info.team == rc.getTeam()) {
                     if (!allyDrones.contains(info.getID())) {
@@ -341,10 +296,114 @@ public strictfp class DeliveryDrone extends Unit {
                         enemyDrones.add(info.getID());
                     }
                 }
+            } else if (info.type == RobotType.COW) {
+                if (dist < cowDistance) {
+                    this.closestCow = loc;
+                    cowDistance = dist;
+                }
+            } else if (info.team != rc.getTeam()) {
+                if (info.type == RobotType.MINER || info.type == RobotType.LANDSCAPER) {
+                    if (dist < enemyLandUnitDistance) {
+                        this.closestEnemyLandUnit = loc;
+                        enemyLandUnitDistance = dist;
+                    }
+                } else if (info.type == RobotType.HQ && comms.enemyHq() == null) {
+                    comms.notifyEnemyBase(loc);
+                } else if (info.type == RobotType.NET_GUN) {
+                    if (dist < enemyNetGunDistance) {
+                        this.closestEnemyNetGun = loc;
+                        enemyNetGunDistance = dist;
+                    }
+                }
+            } else if (info.type == RobotType.MINER) {
+                if (dist < friendlyMinerDistance) {
+                    this.closestFriendlyMiner = loc;
+                    friendlyMinerDistance = dist;
+                    closestFriendlyMinerElevation = rc.senseElevation(loc);
+                }
+            } else if (info.type == RobotType.LANDSCAPER && (comms.walls() == null || comms.walls().indexOf(loc) == -1)) {
+                if (dist < friendlyLandscaperDistance) {
+                    this.closestFriendlyLandscaper = loc;
+                    friendlyLandscaperDistance = dist;
+                }
             }
         }
+
+        // Scan the sensable area for water for some dunking/fun in the sun action. Terrain changes slowly, so after a
+        // one tile move we only scan the tiles which just came into view, with a full rescan every so often.
+        MapMemory memory = this.memory();
+        boolean fullScan = rc.getRoundNum() - this.lastFullScanRound >= Config.DRONE_FULL_SCAN_INTERVAL;
+        SensorScan scan = fullScan ? SensorScan.begin(rc) : SensorScan.beginSince(rc, this.lastScanLocation);
+        if (scan.isFull()) this.lastFullScanRound = rc.getRoundNum();
+        this.lastScanLocation = rc.getLocation();
+
+        while (scan.next()) {
+            MapLocation loc = scan.location();
+
+            // Remember the tile, so pathfinding and later checks don't need to sense it again. Soup and buildings are
+            // filled in from the snapshot, below.
+            boolean flooded = rc.senseFlooding(loc);
+            int elevation = rc.senseElevation(loc);
+            memory.record(loc, elevation, flooded, 0, false, rc.getRoundNum());
+
+            // Early on, every tile we see is evidence about the map's symmetry.
+            comms.notifyTileSensed(rc, loc, elevation);
+
+            // Update closest water tile.
+            int dist = scan.distanceSquared();
+            if (flooded && dist < waterDistance) {
+                this.closestWater = loc;
+                waterDistance = dist;
+            }
+        }
+
+        // Scanning just the new tiles misses ones already in view which have come nearer than the closest water, or
+        // flooded since the last full scan. Check the tiles nearer than it from memory, sensing those right around us
+        // again first.
+        if (!scan.isFull()) {
+            int round = rc.getRoundNum();
+            scan = SensorScan.begin(rc);
+            while (scan.next() && scan.distanceSquared() < waterDistance) {
+                int x = scan.x(), y = scan.y();
+                if (scan.distanceSquared() <= Config.DRONE_WATER_RESENSE_RADIUS_SQUARED && !memory.seenOn(x, y, round)) {
+                    MapLocation loc = scan.location();
+                    memory.record(loc, rc.senseElevation(loc), rc.senseFlooding(loc), 0, false, round);
+                }
+
+                if (memory.isFlooded(x, y)) {
+                    this.closestWater = scan.location();
+                    waterDistance = scan.distanceSquared();
+                }
+            }
+        }
+
+        for (RobotInfo info : perception.robots()) {
+            if (info.type.isBuilding()) memory.markBuilding(info.location);
+        }
+
+        MapLocation[] soup = perception.soup();
+        int[] soupAmounts = perception.soupAmounts();
+        for (int i = 0; i < soup.length; i++) {
+            MapLocation loc = soup[i];
+            memory.recordSoup(loc, soupAmounts[i]);
+            if (perception.robotAt(loc) != null || memory.isFlooded(loc.x, loc.y) || !seemsInaccessible(loc)) continue;
+
+            //TODO: Account for soup that is in water, but adjacent to land that's inaccessible to miners
+            int dist = rc.getLocation().distanceSquaredTo(loc);
+            if (dist < hardSoupDistance) {
+                this.closestHardSoup = loc;
+                hardSoupDistance = dist;
+            }
+        }
+
+        // Whether the closest friendly miner is already next to soup, so doesn't need ferrying to any.
+        if (closestFriendlyMiner != null && rc.canSenseLocation(closestFriendlyMiner)) {
+            closestMinerNearSoup = perception.soupAdjacentTo(closestFriendlyMiner);
+        }
+
         if (closestEnemyNetGun != null && rc.getLocation().distanceSquaredTo(closestEnemyNetGun) < GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED) {
-            moveAway(rc, closestEnemyNetGun);
+            // The state handlers read robots from the snapshot, so take it again from wherever we end up.
+            if (moveAway(rc, closestEnemyNetGun)) perception.sense(rc);
         }
     }
 
@@ -361,7 +420,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // If adjacent to a friendly landscaper, pick it up
         if (rc.getLocation().isAdjacentTo(closestFriendlyLandscaper)) {
-            RobotInfo targetLandscaperInfo = rc.senseRobotAtLocation(closestFriendlyLandscaper);
+            RobotInfo targetLandscaperInfo = this.perception().robotAt(closestFriendlyLandscaper);
             if (targetLandscaperInfo == null) return new Transition(DroneState.ROAMING, false);
 
             if (rc.canPickUpUnit(targetLandscaperInfo.ID)) {
@@ -374,7 +433,7 @@ public strictfp class DeliveryDrone extends Unit {
         if (this.pathfinder == null) this.pathfinder = this.newPathfinder(closestFriendlyLandscaper, true);
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -391,8 +450,9 @@ public strictfp class DeliveryDrone extends Unit {
 
         // Find which wall location to transition to; if every location is occupied, then give up and roam.
         MapLocation targetLoc = comms.walls().get(wallIdxTarget);
-        while (rc.canSenseLocation(targetLoc) && rc.isLocationOccupied(targetLoc)) {
-            if (rc.senseRobotAtLocation(targetLoc).team != rc.getTeam() && rc.senseRobotAtLocation(targetLoc).type.canBePickedUp()) {
+        while (rc.canSenseLocation(targetLoc) && this.perception().robotAt(targetLoc) != null) {
+            RobotInfo occupant = this.perception().robotAt(targetLoc);
+            if (occupant.team != rc.getTeam() && occupant.type.canBePickedUp()) {
                 return new Transition(DroneState.DROPOFF_FRIENDLY, false);
             }
             wallIdxTarget += 1;
@@ -417,7 +477,7 @@ public strictfp class DeliveryDrone extends Unit {
             this.pathfinder = this.newPathfinder(targetLoc, true);
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -456,7 +516,7 @@ public strictfp class DeliveryDrone extends Unit {
                 }
             }
 
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if(move != null && move!= Direction.CENTER) {
             rc.move(move);
@@ -495,7 +555,7 @@ public strictfp class DeliveryDrone extends Unit {
         if (this.pathfindSteps >= 2 * Config.MAX_ROAM_DISTANCE) return new Transition(DroneState.ROAMING, false);
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun,true));
         if (move != null && move != Direction.CENTER) rc.move(move);
         this.pathfindSteps++;
@@ -513,7 +573,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // Look for enemy robot. If see one and not currently holding a unit, transition to chasing.
         if (!rc.isCurrentlyHoldingUnit()) {
-            RobotInfo[] enemyRobots = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+            RobotInfo[] enemyRobots = this.perception().enemies();
             for (RobotInfo nearbyEnemy : enemyRobots) {
                 if (nearbyEnemy.type.canBePickedUp()) {
                     return new Transition(DroneState.SAFE_CHASING, false);
@@ -540,20 +600,6 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
 
-        //TODO: Move this to the sensing logic
-        if (closestFriendlyMiner != null && rc.canSenseLocation(closestFriendlyMiner)) {
-            closestMinerNearSoup = false;
-            MapLocation[] nearbySoup = rc.senseNearbySoup(closestFriendlyMiner,2);
-            if (nearbySoup != null) {
-                for (MapLocation loc : nearbySoup) {
-                    if (loc != null && loc.isAdjacentTo(closestFriendlyMiner)) {
-                        closestMinerNearSoup = true;
-                        break;
-                    }
-                }
-            }
-        }
-
         //If there's hard-to-reach soup, and not currently carrying anything, transition to ferrying a miner
         if (closestFriendlyMiner != null && !closestMinerNearSoup && closestHardSoup != null && !rc.isCurrentlyHoldingUnit()) {
             if (closestFriendlyMiner.distanceSquaredTo(closestHardSoup) > 2) {
@@ -580,7 +626,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -627,7 +673,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -641,7 +687,7 @@ public strictfp class DeliveryDrone extends Unit {
         // Look for enemy robot. If see one, identify closest unit that can be picked up and move towards it.
         // If can already pick up unit, do so and transition to dunking.
         if (!rc.isCurrentlyHoldingUnit()) {
-            Utils.ClosestRobot closest = Utils.closestRobot(rc, robot -> robot.type.canBePickedUp(), rc.getTeam().opponent());
+            Utils.ClosestRobot closest = this.perception().closest(rc, robot -> robot.type.canBePickedUp(), rc.getTeam().opponent());
 
             // If not close, swap back to roaming.
             if (closest.robot == null && (comms.enemyHq() == null || rc.getLocation().distanceSquaredTo(comms.enemyHq()) > 25))
@@ -676,7 +722,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // If adjacent to a friendly miner, pick it up
         if (rc.getLocation().isAdjacentTo(closestFriendlyMiner)) {
-            RobotInfo targetMinerInfo = rc.senseRobotAtLocation(closestFriendlyMiner);
+            RobotInfo targetMinerInfo = this.perception().robotAt(closestFriendlyMiner);
             if (targetMinerInfo == null) {
                 return new Transition(DroneState.ROAMING, false);
             }
@@ -700,7 +746,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -749,7 +795,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -765,7 +811,7 @@ public strictfp class DeliveryDrone extends Unit {
         if (closestEnemyLandUnit == null) return new Transition(DroneState.ROAMING, false);
 
         // If we see an enemy, transition to chasing it
-        RobotInfo[] enemyRobots = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemyRobots = this.perception().enemies();
         for (RobotInfo nearbyEnemy : enemyRobots) {
             if (nearbyEnemy.type.canBePickedUp()) {
                 return new Transition(DroneState.SAFE_CHASING, false);
@@ -783,7 +829,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -803,7 +849,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // If we see an enemy, transition to chasing it
-        RobotInfo[] enemyRobots = rc.senseNearbyRobots();
+        RobotInfo[] enemyRobots = this.perception().robots();
         for (RobotInfo nearbyEnemy : enemyRobots) {
             if (nearbyEnemy.type.canBePickedUp() && nearbyEnemy.team == rc.getTeam().opponent()) {
                 return new Transition(DroneState.SAFE_CHASING, false);
@@ -828,7 +874,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> DeliveryDrone.canMoveD(rc, dir, enemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -842,7 +888,7 @@ public strictfp class DeliveryDrone extends Unit {
         }
 
         // Drone identifies its target. If no target, it transitions to roaming.
-        Utils.ClosestRobot closestTarget = Utils.closestRobot(rc, robot -> robot.type == RobotType.COW, Team.NEUTRAL);
+        Utils.ClosestRobot closestTarget = this.perception().closest(rc, robot -> robot.type == RobotType.COW, Team.NEUTRAL);
         if (closestTarget.robot == null) {
             return new Transition(DroneState.ROAMING, false);
         }
@@ -872,7 +918,7 @@ public strictfp class DeliveryDrone extends Unit {
 
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] nearbyEnemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] nearbyEnemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> rc.canMove(dir));
         if (move != null && move != Direction.CENTER && canMoveD(rc, move, nearbyEnemies, comms.enemyHq(), closestEnemyNetGun, true)) rc.move(move);
 
@@ -888,7 +934,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // If sufficiently far from enemy base, then will dunk enemies on the way
         if (rc.getLocation().distanceSquaredTo(comms.enemyHq()) > 40) {
-            RobotInfo[] enemyRobots = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+            RobotInfo[] enemyRobots = this.perception().enemies();
             for (RobotInfo nearbyEnemy : enemyRobots) {
                 if (nearbyEnemy.type.canBePickedUp()) {
                     return new Transition(DroneState.SAFE_CHASING, false);
@@ -926,7 +972,7 @@ public strictfp class DeliveryDrone extends Unit {
         // Obtain a movement from the pathfinder and follow it.
         // Checks that the destination is a certain distance away from HQ because there's one corner where drone...
         // can't see HQ, but will move into net range
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> rc.canMove(dir));
         if (move != null && move != Direction.CENTER && canMoveD(rc, move, enemies, comms.enemyHq(), closestEnemyNetGun, true)) {
             if (rc.getLocation().add(move).distanceSquaredTo(comms.enemyHq()) > GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED) {
@@ -942,7 +988,7 @@ public strictfp class DeliveryDrone extends Unit {
 
         // If sufficiently far from enemy base, then will dunk enemies on the way
         if (rc.getLocation().distanceSquaredTo(comms.hq()) > 40) {
-            RobotInfo[] enemyRobots = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+            RobotInfo[] enemyRobots = this.perception().enemies();
             for (RobotInfo nearbyEnemy : enemyRobots) {
                 if (nearbyEnemy.type.canBePickedUp()) {
                     return new Transition(DroneState.SAFE_CHASING, false);
@@ -953,7 +999,7 @@ public strictfp class DeliveryDrone extends Unit {
         // If close to HQ and a landscaper is between drone and HQ, drone is still.
         // This may interfere with late-to-the-party bolsterers,  but a stationary wall is good
         if (rc.getLocation().distanceSquaredTo(comms.hq()) <=  18) {
-            RobotInfo robotBetweenDroneAndHQ = rc.senseRobotAtLocation(rc.getLocation().add(rc.getLocation().directionTo(comms.hq())));
+            RobotInfo robotBetweenDroneAndHQ = this.perception().robotAt(rc.getLocation().add(rc.getLocation().directionTo(comms.hq())));
             if (robotBetweenDroneAndHQ != null && robotBetweenDroneAndHQ.team == rc.getTeam() && robotBetweenDroneAndHQ.type == RobotType.LANDSCAPER) {
                 return new Transition(DroneState.DRONE_WALL, true);
             }
@@ -969,7 +1015,7 @@ public strictfp class DeliveryDrone extends Unit {
         // Obtain a movement from the pathfinder and follow it.
         // Checks that the destination is a certain distance away from HQ because there's one corner where drone...
         // can't see HQ, but will move into net range
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] enemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> rc.canMove(dir));
         if (move != null && move != Direction.CENTER && canMoveD(rc, move, enemies, comms.enemyHq(), closestEnemyNetGun, true)) {
             if (rc.getLocation().add(move).distanceSquaredTo(comms.enemyHq()) > GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED) {
@@ -991,7 +1037,7 @@ public strictfp class DeliveryDrone extends Unit {
             this.pathfinder = this.newPathfinder(latestOption, true);
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] nearbyEnemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] nearbyEnemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> canMoveD(rc, dir, nearbyEnemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -1011,7 +1057,7 @@ public strictfp class DeliveryDrone extends Unit {
             return new Transition(DroneState.DRONE_WALL, false);
 
         // Drone identifies its target. If no target, it transitions to roaming.
-        Utils.ClosestRobot closestTarget = Utils.closestRobot(rc, robot -> robot.type == RobotType.LANDSCAPER || robot.type == RobotType.MINER, rc.getTeam().opponent());
+        Utils.ClosestRobot closestTarget = this.perception().closest(rc, robot -> robot.type == RobotType.LANDSCAPER || robot.type == RobotType.MINER, rc.getTeam().opponent());
         if (closestTarget.robot == null) {
             return new Transition(DroneState.ROAMING, false);
         }
@@ -1028,7 +1074,7 @@ public strictfp class DeliveryDrone extends Unit {
             this.pathfinder = this.newPathfinder(closestTarget.robot.location, true);
 
         // Obtain a movement from the pathfinder and follow it.
-        RobotInfo[] nearbyEnemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        RobotInfo[] nearbyEnemies = this.perception().enemyShooters();
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> canMoveD(rc, dir, nearbyEnemies, comms.enemyHq(), closestEnemyNetGun, true));
         if (move != null && move != Direction.CENTER) rc.move(move);
 
@@ -1038,13 +1084,14 @@ public strictfp class DeliveryDrone extends Unit {
     /**
      * Returns true if the location contains soup and it seems like miners need help getting to it.
      */
-    private boolean seemsInaccessible(RobotController rc, MapLocation loc) throws GameActionException {
+    private boolean seemsInaccessible(MapLocation loc) {
         // TODO: Hmm... not a fan of this state here.
         if (closestFriendlyMiner == null) return true;
 
-        return rc.senseElevation(loc) > closestFriendlyMinerElevation + GameConstants.MAX_DIRT_DIFFERENCE
+        int elevation = this.memory().elevation(loc.x, loc.y);
+        return elevation > closestFriendlyMinerElevation + GameConstants.MAX_DIRT_DIFFERENCE
                 || closestFriendlyMiner.distanceSquaredTo(loc) >= 10
-                || rc.senseElevation(loc) < closestFriendlyMinerElevation - GameConstants.MAX_DIRT_DIFFERENCE;
+                || elevation < closestFriendlyMinerElevation - GameConstants.MAX_DIRT_DIFFERENCE;
     }
 
     /**
@@ -1079,7 +1126,14 @@ public strictfp class DeliveryDrone extends Unit {
         this.comms = Bitconnect.initialize(rc);
         this.allyDrones = new DynamicArray<>(50);
         this.enemyDrones = new DynamicArray<>(50);
-        comms.scanRecent(rc, 50);
+    }
+
+    /**
+     * Drones fly over elevation and water, so the terrain-aware planner doesn't apply; use plain bug pathfinding.
+     */
+    @Override
+    public BugPathfinder newPathfinder(MapLocation goal, boolean allowAdjacent) {
+        return BugPathfinder.pathfindTo(goal, this.followingDirection(), allowAdjacent);
     }
 
     /**
@@ -1101,10 +1155,16 @@ public strictfp class DeliveryDrone extends Unit {
         return true;
     }
 
-    private void moveAway(RobotController rc, MapLocation loc) throws GameActionException{
+    /** Step away from the given location if we can, returning true if we moved. */
+    private boolean moveAway(RobotController rc, MapLocation loc) throws GameActionException{
         Direction directlyAway = loc.directionTo(rc.getLocation());
-        if (rc.canMove(directlyAway)) rc.move(directlyAway);
-        else if (rc.canMove(directlyAway.rotateRight())) rc.move(directlyAway.rotateRight());
-        else if (rc.canMove(directlyAway.rotateLeft())) rc.move(directlyAway.rotateLeft());
+        for (Direction dir : new Direction[]{directlyAway, directlyAway.rotateRight(), directlyAway.rotateLeft()}) {
+            if (!rc.canMove(dir)) continue;
+
+            rc.move(dir);
+            return true;
+        }
+
+        return false;
     }
 }
\ No newline at end of file
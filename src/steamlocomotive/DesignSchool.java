@@ -52,7 +52,9 @@ public class DesignSchool extends Unit {
         // The center scans nearby robots at the start of each turn, then passes the result into many of its checks
         // Soup amount is used in many places, so just call rc.getTeamSoup() once here
         // Similarly for myID and currentRound
-        RobotInfo[] nearbyRobots = rc.senseNearbyRobots();
+        Perception nearby = this.perception();
+        nearby.senseRobots(rc);
+        RobotInfo[] nearbyRobots = nearby.robots();
         int teamSoup = rc.getTeamSoup();
         int myID = rc.getID();
         int currentRound = rc.getRoundNum();
@@ -72,9 +74,8 @@ public class DesignSchool extends Unit {
 
 
         // Don't build landscapers directly into the waiting arms of enemy drones
-        Utils.ClosestRobot closestDrone = Utils.closestRobot(rc, RobotType.DELIVERY_DRONE, rc.getTeam().opponent());
-        Utils.ClosestRobot closestFriendlyNet = Utils.closestRobot(rc, RobotType.NET_GUN, rc.getTeam());
-        if(closestDrone.robot != null && (closestDrone == null || closestDrone.distance <= 10) && closestFriendlyNet.distance >= 13) return;
+        if (nearby.distance(RobotType.DELIVERY_DRONE, rc.getTeam().opponent()) <= 10
+                && nearby.distance(RobotType.NET_GUN, rc.getTeam()) >= 13) return;
 
 
 
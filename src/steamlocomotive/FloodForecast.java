@@ -0,0 +1,50 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Forecasts of the rising water, so units avoid tiles which will flood before they get there or while they stand on
+ * them. A dry tile floods once the water level rises above its elevation, provided water can reach it; we take water
+ * to be able to reach a tile if it is already next to flooded tiles. Neighbouring tiles get checked again and again
+ * as a pathfinder probes each move, so sensing goes through the turn's SenseCache.
+ */
+public class FloodForecast {
+
+    /** The water level the given number of rounds from now. */
+    public static float levelIn(RobotController rc, int rounds) {
+        return GameConstants.getWaterLevel(rc.getRoundNum() + rounds);
+    }
+
+    /** True if a tile at the given elevation will be below the given water level. */
+    public static boolean below(int elevation, float level) {
+        return elevation < level;
+    }
+
+    /**
+     * True if the given sensable tile is flooded, or will be within the given number of rounds: it will be below the
+     * water level and is next to water already.
+     */
+    public static boolean willFlood(RobotController rc, MapLocation loc, int rounds) throws GameActionException {
+        SenseCache sensed = SenseCache.of(rc);
+        if (sensed.flooded(rc, loc)) return true;
+        if (!FloodForecast.below(sensed.elevation(rc, loc), FloodForecast.levelIn(rc, rounds))) return false;
+
+        for (Direction dir : Direction.allDirections()) {
+            MapLocation adj = loc.add(dir);
+            if (dir != Direction.CENTER && rc.canSenseLocation(adj) && sensed.flooded(rc, adj)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * True if moving onto the given tile is safe from the water for the next FLOOD_FORECAST_ROUNDS rounds. If where we
+     * are standing will flood just as soon, any dry tile is no worse than staying put, so only flooded ones are unsafe.
+     */
+    public static boolean safeToEnter(RobotController rc, MapLocation target) throws GameActionException {
+        if (SenseCache.of(rc).flooded(rc, target)) return false;
+        if (!FloodForecast.willFlood(rc, target, Config.FLOOD_FORECAST_ROUNDS)) return true;
+
+        return FloodForecast.willFlood(rc, rc.getLocation(), Config.FLOOD_FORECAST_ROUNDS);
+    }
+}
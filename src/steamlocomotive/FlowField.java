@@ -0,0 +1,245 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Directions home for returning units: a flow field over the window of tiles around our HQ, pointing each tile along a
+ * shortest walkable path to a tile next to the HQ. The HQ computes the field with a breadth-first search over the
+ * terrain it senses, a slice at a time; since most tiles just point straight at the HQ, only the tiles which don't
+ * (the hints) are broadcast, and everyone else rebuilds the field from those. Tiles the field doesn't cover (ones the
+ * search didn't reach, or whose way home runs through a hint that was capped off) are broadcast as a bitmap of rows,
+ * so units there fall back on their own pathfinding rather than heading straight for the HQ.
+ */
+public class FlowField {
+    /** How far the window extends from the HQ along each axis, its side length, and its number of tiles. */
+    public static final int RADIUS = 7, SIZE = 2 * RADIUS + 1, TILES = SIZE * SIZE;
+
+    /** Bits for a tile's offset in the window, a hint direction, and the field version. */
+    public static final int OFFSET_BITS = 8, DIRECTION_BITS = 3, VERSION_BITS = 4;
+
+    // Directions other than CENTER, indexed by ordinal.
+    private static final Direction[] DIRECTIONS = {
+        Direction.NORTH, Direction.NORTHEAST, Direction.EAST, Direction.SOUTHEAST,
+        Direction.SOUTH, Direction.SOUTHWEST, Direction.WEST, Direction.NORTHWEST
+    };
+
+    // The hint for each window tile: 0 to head straight for the HQ, otherwise the direction's index plus one.
+    private final int[] hints;
+    // For each row of the window, a bit per column set if the field covers that tile.
+    private final int[] rows;
+    // The version of the field the hints belong to, or -1 if there is no field yet.
+    private int version;
+
+    // Search state while computing: the BFS distance of each tile (valid when its stamp matches), the tile it steps to
+    // on the way home, and the queue of tiles in the order they were reached, which is also nearest-first order for
+    // capping the hints.
+    private final int[] stamps, distances, elevations, nexts, queue;
+    private int search, head, tail;
+    private boolean computing;
+    private MapLocation hq;
+
+    public FlowField() {
+        this.hints = new int[TILES];
+        this.rows = new int[SIZE];
+        this.version = -1;
+        this.stamps = new int[TILES];
+        this.distances = new int[TILES];
+        this.elevations = new int[TILES];
+        this.nexts = new int[TILES];
+        this.queue = new int[TILES];
+        this.computing = false;
+    }
+
+    /** The index of the given location in the window around the HQ, or -1 if it is outside it. */
+    public static int offset(MapLocation hq, MapLocation loc) {
+        int dx = loc.x - hq.x + RADIUS, dy = loc.y - hq.y + RADIUS;
+        if (dx < 0 || dy < 0 || dx >= SIZE || dy >= SIZE) return -1;
+        return dx + dy * SIZE;
+    }
+
+    /** The version of the current field, or -1 if there is none. */
+    public int version() {
+        return this.version;
+    }
+
+    /**
+     * The direction to head from the given location to get home to the HQ, or null if we have no field or it doesn't
+     * cover the location.
+     */
+    public Direction direction(MapLocation hq, MapLocation from) {
+        if (this.version < 0) return null;
+
+        int offset = FlowField.offset(hq, from);
+        if (offset == -1 || offset == FlowField.offset(hq, hq) || !this.covers(offset)) return null;
+
+        int hint = this.hints[offset];
+        return hint == 0 ? from.directionTo(hq) : DIRECTIONS[hint - 1];
+    }
+
+    /** Apply a hint read off the chain; hints of a different version replace the whole field. */
+    public void apply(int version, int offset, int direction) {
+        this.beginVersion(version);
+        this.hints[offset] = direction + 1;
+    }
+
+    /** Apply a row of the coverage bitmap read off the chain; rows of a different version replace the whole field. */
+    public void applyRow(int version, int row, int mask) {
+        this.beginVersion(version);
+        this.rows[row] = mask;
+    }
+
+    /** Start on the given version of the field; if it differs from the current one, every hint and row is reset. */
+    public void beginVersion(int version) {
+        if (version == this.version) return;
+
+        for (int i = 0; i < TILES; i++) this.hints[i] = 0;
+        for (int i = 0; i < SIZE; i++) this.rows[i] = 0;
+        this.version = version;
+    }
+
+    /** True if the field covers the tile at the given offset. */
+    public boolean covers(int offset) {
+        return (this.rows[offset / SIZE] & (1 << (offset % SIZE))) != 0;
+    }
+
+    /** True if the field covers any tile around the HQ. */
+    public boolean coversAny() {
+        for (int i = 0; i < SIZE; i++) {
+            if (this.rows[i] != 0) return true;
+        }
+
+        return false;
+    }
+
+    /** The coverage bitmap of the given row: a bit per column, set if the field covers that tile. */
+    public int row(int row) {
+        return this.rows[row];
+    }
+
+    /** True if the two fields agree on every hint and covered tile (regardless of version). */
+    public boolean sameField(FlowField other) {
+        for (int i = 0; i < TILES; i++) {
+            if (this.hints[i] != other.hints[i]) return false;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            if (this.rows[i] != other.rows[i]) return false;
+        }
+
+        return true;
+    }
+
+    public boolean isComputing() {
+        return this.computing;
+    }
+
+    /** Start computing a fresh field around the given unit's location, which should be the HQ. */
+    public void start(RobotController rc) throws GameActionException {
+        this.hq = rc.getLocation();
+        this.search++;
+        this.head = 0;
+        this.tail = 0;
+        this.computing = true;
+
+        int center = FlowField.offset(hq, hq);
+        this.stamps[center] = this.search;
+        this.distances[center] = 0;
+        this.elevations[center] = rc.senseElevation(hq);
+        this.hints[center] = 0;
+        this.queue[this.tail++] = center;
+    }
+
+    /**
+     * Continue the search until it finishes or the turn is down to the given number of bytecodes. Returns true on the
+     * call which finishes the field; only the first maxHints hints (nearest the HQ first) are kept.
+     */
+    public boolean step(RobotController rc, int bytecodeReserve, int maxHints) throws GameActionException {
+        if (!this.computing) return false;
+
+        int center = FlowField.offset(hq, hq);
+        while (this.head < this.tail) {
+            if (Clock.getBytecodesLeft() < bytecodeReserve) return false;
+
+            int from = this.queue[this.head++];
+            int x = from % SIZE, y = from / SIZE;
+            int distance = this.distances[from] + 1;
+
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                int nx = x - DIRECTIONS[i].getDeltaX(), ny = y - DIRECTIONS[i].getDeltaY();
+                if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE) continue;
+
+                int tile = nx + ny * SIZE;
+                if (this.stamps[tile] == this.search) continue;
+
+                // Stepping from the tile in direction i gets us to where we're expanding from. Units don't climb onto
+                // the HQ, so the first ring just needs to be standable.
+                MapLocation loc = new MapLocation(hq.x + nx - RADIUS, hq.y + ny - RADIUS);
+                if (!rc.canSenseLocation(loc) || rc.senseFlooding(loc)) continue;
+                if (rc.isLocationOccupied(loc) && rc.senseRobotAtLocation(loc).type.isBuilding()) continue;
+                int elevation = rc.senseElevation(loc);
+                if (from != center && Math.abs(elevation - this.elevations[from]) > GameConstants.MAX_DIRT_DIFFERENCE) continue;
+
+                this.stamps[tile] = this.search;
+                this.distances[tile] = distance;
+                this.elevations[tile] = elevation;
+                this.queue[this.tail++] = tile;
+                if (this.straightIsShortest(loc, tile, distance)) {
+                    Direction straight = loc.directionTo(hq);
+                    this.hints[tile] = 0;
+                    this.nexts[tile] = tile + straight.getDeltaX() + straight.getDeltaY() * SIZE;
+                } else {
+                    this.hints[tile] = i + 1;
+                    this.nexts[tile] = from;
+                }
+            }
+        }
+
+        // Keep the hints nearest the HQ, and clear any left over from tiles we couldn't reach this time. A tile is
+        // covered if its step home is kept and leads to a covered tile; that tile was reached first, so one pass in
+        // queue order settles it.
+        int kept = 0;
+        for (int tile = 0; tile < TILES; tile++) {
+            if (this.stamps[tile] != this.search) this.hints[tile] = 0;
+        }
+        for (int i = 0; i < SIZE; i++) this.rows[i] = 0;
+        for (int i = 1; i < this.tail; i++) {
+            int tile = this.queue[i];
+            if (this.hints[tile] != 0 && kept++ >= maxHints) {
+                this.hints[tile] = 0;
+                continue;
+            }
+
+            int next = this.nexts[tile];
+            if (next == center || this.covers(next)) this.rows[tile / SIZE] |= 1 << (tile % SIZE);
+        }
+
+        this.computing = false;
+        return true;
+    }
+
+    /** Write the hints (offset and direction index) into the given arrays; returns how many there are. */
+    public int writeHints(int[] offsets, int[] directions) {
+        int count = 0;
+        for (int tile = 0; tile < TILES; tile++) {
+            if (this.hints[tile] == 0) continue;
+
+            offsets[count] = tile;
+            directions[count] = this.hints[tile] - 1;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * True if stepping from the given tile straight towards the HQ is as short as the path we found it by: the tile
+     * in that direction is one step closer to home, and we can climb between the two.
+     */
+    private boolean straightIsShortest(MapLocation loc, int tile, int distance) {
+        if (distance == 1) return true;
+
+        Direction straight = loc.directionTo(hq);
+        int next = tile + straight.getDeltaX() + straight.getDeltaY() * SIZE;
+        return this.stamps[next] == this.search && this.distances[next] == distance - 1
+                && Math.abs(this.elevations[next] - this.elevations[tile]) <= GameConstants.MAX_DIRT_DIFFERENCE;
+    }
+}
@@ -30,7 +30,9 @@ public class FulfillmentCenter extends Unit {
         // The center scans nearby robots at the start of each turn, then passes the result into many of its checks
         // Soup amount is used in many places, so just call rc.getTeamSoup() once here
         // Similarly for myID and currentRound
-        RobotInfo[] nearbyRobots = rc.senseNearbyRobots();
+        Perception nearby = this.perception();
+        nearby.senseRobots(rc);
+        RobotInfo[] nearbyRobots = nearby.robots();
         int teamSoup = rc.getTeamSoup();
         int myID = rc.getID();
         int currentRound = rc.getRoundNum();
@@ -50,9 +52,9 @@ public class FulfillmentCenter extends Unit {
 
 
         // If near an enemy landscaper and don't see friendly drone, build a drone
-        Utils.ClosestRobot closestFriendlyDrone = Utils.closestRobot(rc, RobotType.DELIVERY_DRONE, rc.getTeam());
-        Utils.ClosestRobot closestEnemyLandScaper = Utils.closestRobot(rc, RobotType.LANDSCAPER, rc.getTeam().opponent());
-        if (closestFriendlyDrone== null && closestEnemyLandScaper != null) buildTowardsEnemy(rc, nearbyRobots);
+        RobotInfo closestFriendlyDrone = nearby.nearest(RobotType.DELIVERY_DRONE, rc.getTeam());
+        RobotInfo closestEnemyLandScaper = nearby.nearest(RobotType.LANDSCAPER, rc.getTeam().opponent());
+        if (closestFriendlyDrone == null && closestEnemyLandScaper != null) buildTowardsEnemy(rc, nearbyRobots);
 
         // These initial two drones are meant to preempt a rush
         // The isOutnumbered stuff above can react to rushes, but due to the 10 turn lag on creation to activity...
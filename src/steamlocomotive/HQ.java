@@ -7,8 +7,6 @@ import battlecode.common.*;
  */
 public class HQ extends Unit {
 
-    public static final int RETRANSMIT_FREQUENCY = 40;
-
     // Number of miners which have been spawned.
     private int numMiners = 0;
 
@@ -25,6 +23,12 @@ public class HQ extends Unit {
     // comms
     private Bitconnect comms;
 
+    // The flow field home, computed with leftover bytecodes; the round we last started computing it, and whether we've
+    // built a miner (who hasn't heard the field) since it was last broadcast.
+    private final FlowField flowField = new FlowField();
+    private int flowFieldStarted = -Config.FLOW_FIELD_INTERVAL;
+    private boolean minerSinceFlowField = false;
+
     public HQ(int id) {
         super(id);
     }
@@ -39,7 +43,7 @@ public class HQ extends Unit {
         }
 
         // Consistently send out HQ wall information on a regular basis for newly created landscapers.
-        if (turn % RETRANSMIT_FREQUENCY == 0) {
+        if (turn % Config.COMMS_RETRANSMIT_INTERVAL == 0) {
             // If wall is done, notify landscapers.
             if (this.isWallDone(rc)) comms.notifyWallDone(true);
 
@@ -47,6 +51,9 @@ public class HQ extends Unit {
             if (comms.enemyHq() != null) comms.notifyEnemyBase(comms.enemyHq());
         }
 
+        // Publish the full shared state so new units can start reading the chain from here.
+        if (turn % Config.COMMS_SNAPSHOT_INTERVAL == 0) comms.notifySnapshot();
+
         // Read the blockchain for any status updates (and send any queued messages).
         comms.updateForTurn(rc);
 
@@ -109,11 +116,17 @@ public class HQ extends Unit {
      * Build a miner close to soup; build randomly if no soup is visible.
      */
     public void buildMiner(RobotController rc) throws GameActionException {
-        // Look at all of the soup locations, and send a miner to a random soup location.
+        // Look at all of the soup locations, and send a miner to a random soup location. If there are none in view,
+        // send it towards the best soup region the team knows of, or randomly if we don't know of any.
         MapLocation[] soupLocations = rc.senseNearbySoup();
+        int[] soupAmounts = new int[soupLocations.length];
+        for (int i = 0; i < soupLocations.length; i++) soupAmounts[i] = rc.senseSoup(soupLocations[i]);
+        comms.notifySoupSensed(rc, soupLocations, soupAmounts);
 
         if (soupLocations.length == 0) {
-            soupLocations = new MapLocation[]{new MapLocation(this.rng.nextInt(rc.getMapWidth()), this.rng.nextInt(rc.getMapHeight()))};
+            MapLocation known = comms.soupMap().bestTarget(rc.getLocation());
+            if (known == null) known = new MapLocation(this.rng.nextInt(rc.getMapWidth()), this.rng.nextInt(rc.getMapHeight()));
+            soupLocations = new MapLocation[]{known};
         }
 
         if((numMiners < 4 && rc.getRoundNum() %4 == 0) || (numBuilders >= 2 && rc.getRoundNum() %4 == 0) || (numMiners >= 4 && numBuilders == 0 && rc.getRoundNum()%4 != 0)) {
@@ -135,6 +148,7 @@ public class HQ extends Unit {
                 numBuilders++;
             }
             this.numMiners += 1;
+            this.minerSinceFlowField = true;
         }
     }
 
@@ -280,4 +294,27 @@ public class HQ extends Unit {
     public void onCreation(RobotController rc) throws GameActionException {
         this.comms = Bitconnect.initialize(rc);
     }
+
+    /**
+     * Spend leftover bytecodes on the flow field home, recomputing it every FLOW_FIELD_INTERVAL rounds. A finished
+     * field is broadcast if it differs from the last one on the chain, or if new miners haven't heard it yet.
+     */
+    @Override
+    public void afterTurn(RobotController rc) throws GameActionException {
+        super.afterTurn(rc);
+
+        if (!this.flowField.isComputing()) {
+            if (rc.getRoundNum() - this.flowFieldStarted < Config.FLOW_FIELD_INTERVAL) return;
+
+            this.flowField.start(rc);
+            this.flowFieldStarted = rc.getRoundNum();
+        }
+
+        if (!this.flowField.step(rc, Config.FLOW_FIELD_BYTECODE_RESERVE, Config.FLOW_FIELD_MAX_HINTS)) return;
+
+        if (!this.flowField.sameField(comms.flowField()) || (this.minerSinceFlowField && this.flowField.coversAny())) {
+            comms.notifyFlowField(this.flowField);
+            this.minerSinceFlowField = false;
+        }
+    }
 }
\ No newline at end of file
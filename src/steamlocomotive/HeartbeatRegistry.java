@@ -0,0 +1,185 @@
+package steamlocomotive;
+
+import battlecode.common.MapLocation;
+
+/**
+ * Tracks the buildings of a single type which have broadcast a heartbeat recently. Entries live in a fixed-capacity
+ * open-addressed table keyed by robot id, so refreshing a heartbeat is O(1) and never allocates; expiry is driven by a
+ * timing wheel bucketed by round, so expiring old entries only costs as much as the number of entries which expire.
+ */
+public class HeartbeatRegistry {
+    // Slot states in the table; deleted slots are tombstones which lookups probe past but inserts can reuse.
+    private static final int EMPTY = 0, LIVE = 1, DELETED = 2;
+
+    // Sentinel for the end of a wheel bucket's list.
+    private static final int NONE = -1;
+
+    // The number of rounds an entry lives without a fresh heartbeat.
+    private final int timeout;
+
+    // Open-addressed table; ids, packed locations, and the round of the latest heartbeat for each slot.
+    private final int[] state, ids, locations, rounds;
+    private final int mask;
+    private int size;
+
+    // Timing wheel: the head of a doubly linked list of slots for each expiry round (mod the wheel size).
+    private final int[] wheel, next, prev;
+    private final int wheelMask;
+
+    // Every entry expiring on or before this round has been removed.
+    private int expiredThrough;
+
+    /**
+     * Create a registry holding up to the given number of buildings (rounded up to a power of two), where each entry
+     * expires the given number of rounds after its latest heartbeat.
+     */
+    public HeartbeatRegistry(int capacity, int timeout) {
+        int cap = 1;
+        while (cap < capacity) cap <<= 1;
+
+        this.timeout = timeout;
+        this.state = new int[cap];
+        this.ids = new int[cap];
+        this.locations = new int[cap];
+        this.rounds = new int[cap];
+        this.mask = cap - 1;
+        this.size = 0;
+
+        // Heartbeats are at most a round old when recorded, so with a wheel longer than the timeout plus one, a bucket
+        // normally only holds entries expiring on the same round.
+        int wheelSize = 1;
+        while (wheelSize < timeout + 2) wheelSize <<= 1;
+        this.wheel = new int[wheelSize];
+        for (int i = 0; i < wheelSize; i++) this.wheel[i] = NONE;
+        this.next = new int[cap];
+        this.prev = new int[cap];
+        this.wheelMask = wheelSize - 1;
+        this.expiredThrough = 0;
+    }
+
+    /**
+     * Record a heartbeat from the given building at the given (packed) location. Heartbeats older than the one already
+     * recorded, or which would already have expired, are ignored. Returns false if the registry is full.
+     */
+    public boolean update(int id, int packedLocation, int round) {
+        if (round + timeout + 1 <= expiredThrough) return true;
+
+        int slot = this.find(id);
+        if (slot != NONE) {
+            if (rounds[slot] >= round) return true;
+
+            this.unlink(slot);
+            locations[slot] = packedLocation;
+            rounds[slot] = round;
+            this.link(slot);
+            return true;
+        }
+
+        // Not present; take the first free slot along the probe sequence.
+        int index = id & mask;
+        for (int probe = 0; probe <= mask; probe++, index = (index + 1) & mask) {
+            if (state[index] == LIVE) continue;
+
+            state[index] = LIVE;
+            ids[index] = id;
+            locations[index] = packedLocation;
+            rounds[index] = round;
+            this.link(index);
+            size++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Remove every entry whose latest heartbeat is more than the timeout before the given round. Only the wheel buckets
+     * for the rounds since the last call are visited.
+     */
+    public void expire(int round) {
+        if (round <= expiredThrough) return;
+
+        if (round - expiredThrough >= wheel.length) {
+            // The wheel has come all the way around since the last call; one pass over every bucket covers it.
+            for (int bucket = 0; bucket < wheel.length; bucket++) this.expireBucket(bucket, round);
+        } else {
+            for (int r = expiredThrough + 1; r <= round; r++) this.expireBucket(r & wheelMask, r);
+        }
+
+        expiredThrough = round;
+    }
+
+    /** The number of buildings which have broadcast a heartbeat recently. */
+    public int size() {
+        return size;
+    }
+
+    /** True if the given building has broadcast a heartbeat recently. */
+    public boolean contains(int id) {
+        return this.find(id) != NONE;
+    }
+
+    /** The number of slots in the table; iterate with isLive(slot) and the slot accessors below. */
+    public int slots() {
+        return state.length;
+    }
+
+    public boolean isLive(int slot) {
+        return state[slot] == LIVE;
+    }
+
+    public int id(int slot) {
+        return ids[slot];
+    }
+
+    public int round(int slot) {
+        return rounds[slot];
+    }
+
+    public MapLocation location(int slot) {
+        return Bitconnect.unpackLocation(locations[slot]);
+    }
+
+    /** Remove the entries in the given bucket which expire on or before the given round. */
+    private void expireBucket(int bucket, int round) {
+        int slot = wheel[bucket];
+        while (slot != NONE) {
+            int following = next[slot];
+            if (rounds[slot] + timeout + 1 <= round) {
+                this.unlink(slot);
+                state[slot] = DELETED;
+                size--;
+            }
+            slot = following;
+        }
+    }
+
+    /** Find the slot holding the given id, or NONE. */
+    private int find(int id) {
+        int index = id & mask;
+        for (int probe = 0; probe <= mask; probe++, index = (index + 1) & mask) {
+            if (state[index] == EMPTY) return NONE;
+            if (state[index] == LIVE && ids[index] == id) return index;
+        }
+
+        return NONE;
+    }
+
+    /** Add the slot to the wheel bucket for the round it expires on. */
+    private void link(int slot) {
+        int bucket = (rounds[slot] + timeout + 1) & wheelMask;
+        int head = wheel[bucket];
+        next[slot] = head;
+        prev[slot] = NONE;
+        if (head != NONE) prev[head] = slot;
+        wheel[bucket] = slot;
+    }
+
+    /** Remove the slot from its wheel bucket. */
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) next[prev[slot]] = next[slot];
+        else wheel[(rounds[slot] + timeout + 1) & wheelMask] = next[slot];
+
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+    }
+}
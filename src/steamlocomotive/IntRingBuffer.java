@@ -0,0 +1,84 @@
+package steamlocomotive;
+
+/**
+ * A fixed-capacity FIFO queue of primitive ints backed by a circular array; like RingBuffer, but without boxing.
+ */
+public class IntRingBuffer {
+
+    private final int[] content;
+    private int head;
+    private int size;
+
+    /**
+     * Create a ring buffer which can hold at most the given number of ints.
+     */
+    public IntRingBuffer(int capacity) {
+        content = new int[capacity];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Return the number of ints in the buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the maximum number of ints the buffer can hold.
+     */
+    public int capacity() {
+        return content.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == content.length;
+    }
+
+    /**
+     * Add a value to the back of the buffer; returns false (and drops the value) if the buffer is full.
+     */
+    public boolean add(int value) {
+        if (size == content.length) return false;
+
+        int tail = head + size;
+        if (tail >= content.length) tail -= content.length;
+        content[tail] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Return the value at the front of the buffer without removing it. The buffer must not be empty.
+     */
+    public int peek() {
+        if (size == 0) throw new IllegalStateException("Peek on an empty buffer");
+        return content[head];
+    }
+
+    /**
+     * Remove and return the value at the front of the buffer. The buffer must not be empty.
+     */
+    public int poll() {
+        if (size == 0) throw new IllegalStateException("Poll on an empty buffer");
+
+        int value = content[head];
+        head++;
+        if (head == content.length) head = 0;
+        size--;
+        return value;
+    }
+
+    /**
+     * Remove all values from the buffer.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
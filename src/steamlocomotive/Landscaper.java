@@ -41,6 +41,8 @@ public class Landscaper extends Unit {
     private DynamicArray<MapLocation> bolsterLocations, innerBolsterLocations;
     // Spawn Location
     private MapLocation spawnLocation;
+    // This turn's cache of what we've sensed; the same tiles get looked at over and over.
+    private SenseCache sensed;
 
     public Landscaper(int id) {
         super(id);
@@ -51,6 +53,8 @@ public class Landscaper extends Unit {
 
     @Override
     public void run(RobotController rc, int turn) throws GameActionException {
+        this.sensed = SenseCache.of(rc);
+
         // Check the blockchain for useful information.
         comms.updateForTurn(rc);
 
@@ -107,6 +111,9 @@ public class Landscaper extends Unit {
      * Scan surroundings for enemy and allied buildings.
      */
     public void scanSurroundings(RobotController rc) throws GameActionException {
+        // The tile we're standing on is evidence about the map's symmetry.
+        comms.notifyTileSensed(rc, rc.getLocation(), rc.senseElevation(rc.getLocation()));
+
         // Update the location of the enemy HQ if needed.
         if (comms.enemyHq() == null) {
             Utils.ClosestRobot enemyHqLoc = Utils.closestRobot(rc, RobotType.HQ, rc.getTeam().opponent());
@@ -117,7 +124,7 @@ public class Landscaper extends Unit {
                 for (MapLocation loc : comms.potentialEnemyLocations()) {
                     if (!rc.canSenseLocation(loc)) continue;
 
-                    RobotInfo robot = rc.senseRobotAtLocation(loc);
+                    RobotInfo robot = sensed.robotAt(rc, loc);
                     if (robot == null || robot.type != RobotType.HQ) comms.notifyNoEnemyBase(loc);
                 }
             }
@@ -127,12 +134,16 @@ public class Landscaper extends Unit {
         boolean closeToEnemyHQ = comms.enemyHq() != null && rc.getLocation().distanceSquaredTo(comms.enemyHq()) < 18;
 
         // Scan for a nearby enemy to bury (either a building or a landscaper building a wall); if there are none, head back to regular terraforming.
-        RobotInfo[] enemies = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+        // Every robot is sensed, not just the enemy's, so the terrain memory keeps our own buildings too.
+        RobotInfo[] robots = rc.senseNearbyRobots();
+        this.recordTerrain(rc, robots);
         this.closestEnemy = null;
         int closestDistance = Integer.MAX_VALUE;
-        for (RobotInfo robot : enemies) {
+        for (RobotInfo robot : robots) {
+            if (robot.team != rc.getTeam().opponent()) continue;
+
             // Ignore mobile units unless we are close to HQ.
-            boolean isTarget = (!robot.type.canMove() || (closeToEnemyHQ && robot.type == RobotType.LANDSCAPER && rc.senseElevation(robot.location) > 10));
+            boolean isTarget = (!robot.type.canMove() || (closeToEnemyHQ && robot.type == RobotType.LANDSCAPER && sensed.elevation(rc, robot.location) > 10));
             if (!isTarget) continue;
 
             int dist = rc.getLocation().distanceSquaredTo(robot.location);
@@ -145,7 +156,7 @@ public class Landscaper extends Unit {
         // Change to bolstering if close enough to a bolster location that's the correct elevation
         if (comms.isWallDone()) {
             for (MapLocation loc : bolsterLocations) {
-                if (rc.getLocation().distanceSquaredTo(loc) <= 2 && rc.senseElevation(loc) >= Config.terraformHeight(rc.getRoundNum()) && rc.getRoundNum() > 500 && rc.senseElevation(loc) == rc.senseElevation(rc.getLocation()) && !rc.isLocationOccupied(loc)) {
+                if (rc.getLocation().distanceSquaredTo(loc) <= 2 && sensed.elevation(rc, loc) >= Config.terraformHeight(rc.getRoundNum()) && rc.getRoundNum() > 500 && sensed.elevation(rc, loc) == sensed.elevation(rc, rc.getLocation()) && !sensed.isOccupied(rc, loc)) {
                     this.state = LandscaperState.MOVE_TO_BOLSTER;
                 }
             }
@@ -160,12 +171,12 @@ public class Landscaper extends Unit {
             Utils.ClosestRobot closestDrone = Utils.closestRobot(rc, RobotType.DELIVERY_DRONE, rc.getTeam().opponent());
             if(closestDrone.robot != null && closestDrone.distance <= 8){
                 Direction runAwayDirection = closestDrone.robot.location.directionTo(rc.getLocation());
-                if (rc.canMove(runAwayDirection) && !rc.senseFlooding(rc.getLocation().add(runAwayDirection))) {
-                    rc.move(runAwayDirection);
-                } else if (rc.canMove(runAwayDirection.rotateRight()) && !rc.senseFlooding(rc.getLocation().add(runAwayDirection.rotateRight()))) {
-                    rc.move(runAwayDirection.rotateRight());
-                } else if (rc.canMove(runAwayDirection.rotateLeft()) && !rc.senseFlooding(rc.getLocation().add(runAwayDirection.rotateLeft()))) {
-                    rc.move(runAwayDirection.rotateLeft());
+                if (rc.canMove(runAwayDirection) && !sensed.flooded(rc, rc.getLocation().add(runAwayDirection))) {
+                    sensed.move(rc, runAwayDirection);
+                } else if (rc.canMove(runAwayDirection.rotateRight()) && !sensed.flooded(rc, rc.getLocation().add(runAwayDirection.rotateRight()))) {
+                    sensed.move(rc, runAwayDirection.rotateRight());
+                } else if (rc.canMove(runAwayDirection.rotateLeft()) && !sensed.flooded(rc, rc.getLocation().add(runAwayDirection.rotateLeft()))) {
+                    sensed.move(rc, runAwayDirection.rotateLeft());
                 }
             }
         }
@@ -182,11 +193,11 @@ public class Landscaper extends Unit {
 
         // Dig from the HQ if it is being buried, otherwise dig off-lattice.
         Direction digFrom = smartDigDirection(rc);
-        if (rc.canSenseLocation(comms.hq()) && rc.senseRobotAtLocation(comms.hq()).dirtCarrying > 0)
+        if (rc.canSenseLocation(comms.hq()) && sensed.robotAt(rc, comms.hq()).dirtCarrying > 0)
             digFrom = rc.getLocation().directionTo(comms.hq());
 
         Direction depositLoc = Direction.CENTER;
-        int height = rc.senseElevation(rc.getLocation());
+        int height = sensed.elevation(rc, rc.getLocation());
 
         // If equalizing, find the lowest adjacent wall tile and build there.
         if (equalize) {
@@ -195,7 +206,7 @@ public class Landscaper extends Unit {
                 MapLocation loc = rc.getLocation().add(dir);
                 if (!rc.canSenseLocation(loc)) continue;
 
-                int adjHeight = rc.senseElevation(loc);
+                int adjHeight = sensed.elevation(rc, loc);
                 if (this.isWallTile(loc) && adjHeight < height) {
                     depositLoc = dir;
                     height = adjHeight;
@@ -213,9 +224,9 @@ public class Landscaper extends Unit {
 
         // Put dirt on target if we can. If not, dig more.
         if (rc.canDepositDirt(depositLoc)) {
-            rc.depositDirt(depositLoc);
+            sensed.depositDirt(rc, depositLoc);
         } else {
-            if (digFrom != null && rc.canDigDirt(digFrom)) rc.digDirt(digFrom);
+            if (digFrom != null && rc.canDigDirt(digFrom)) sensed.digDirt(rc, digFrom);
         }
 
         return LandscaperState.BUILD_WALL;
@@ -231,7 +242,7 @@ public class Landscaper extends Unit {
             MapLocation target = rc.getLocation().add(dir);
             if (isInnerBolsterTile(target)) {
                 if (rc.canMove(dir)) {
-                    rc.move(dir);
+                    sensed.move(rc, dir);
                     return LandscaperState.BOLSTER_WALL;
                 }
             }
@@ -244,10 +255,10 @@ public class Landscaper extends Unit {
      */
     public LandscaperState moveToBolster(RobotController rc) throws GameActionException {
         for (MapLocation loc : bolsterLocations) {
-            if (rc.getLocation().distanceSquaredTo(loc) <= 2 && rc.senseElevation(loc) == rc.senseElevation(rc.getLocation())) {
+            if (rc.getLocation().distanceSquaredTo(loc) <= 2 && sensed.elevation(rc, loc) == sensed.elevation(rc, rc.getLocation())) {
                 Direction direct = rc.getLocation().directionTo(loc);
                 if (rc.canMove(direct)) {
-                    rc.move(direct);
+                    sensed.move(rc, direct);
                     return LandscaperState.BOLSTER_WALL;
                 }
             }
@@ -272,14 +283,14 @@ public class Landscaper extends Unit {
             MapLocation loc = rc.getLocation().add(dir);
             if (!rc.canSenseLocation(loc)) continue;
 
-            int adjHeight = rc.senseElevation(loc);
+            int adjHeight = sensed.elevation(rc, loc);
             if (this.isWallTile(loc) && adjHeight < height) {
                 depositLoc = dir;
                 height = adjHeight;
             }
         }
 
-        if (rc.senseElevation(rc.getLocation()) < Config.terraformHeight(rc.getRoundNum()))
+        if (sensed.elevation(rc, rc.getLocation()) < Config.terraformHeight(rc.getRoundNum()))
             depositLoc = Direction.CENTER;
 
         // If adjacent to an enemy building, bury it
@@ -292,9 +303,9 @@ public class Landscaper extends Unit {
 
         // Put dirt on target if we can. If not, dig more.
         if (rc.canDepositDirt(depositLoc)) {
-            rc.depositDirt(depositLoc);
+            sensed.depositDirt(rc, depositLoc);
         } else {
-            if (digFrom != null && rc.canDigDirt(digFrom)) rc.digDirt(digFrom);
+            if (digFrom != null && rc.canDigDirt(digFrom)) sensed.digDirt(rc, digFrom);
         }
 
         return LandscaperState.BOLSTER_WALL;
@@ -307,7 +318,7 @@ public class Landscaper extends Unit {
         MapLocation furthestSpot = comms.hq();
         float dist = 0;
         for (MapLocation loc : comms.walls()) {
-            if (rc.canSenseLocation(loc) && (!rc.isLocationOccupied(loc) || rc.getLocation().equals(loc)) && Math.abs(rc.senseElevation(loc) - rc.senseElevation(rc.getLocation())) <= 3) {
+            if (rc.canSenseLocation(loc) && (!sensed.isOccupied(rc, loc) || rc.getLocation().equals(loc)) && Math.abs(sensed.elevation(rc, loc) - sensed.elevation(rc, rc.getLocation())) <= 3) {
                 int tempDist = spawnLocation.distanceSquaredTo(loc) + loc.x / 1000;
                 if (tempDist > dist) {
                     dist = tempDist;
@@ -336,12 +347,12 @@ public class Landscaper extends Unit {
         if (this.closestEnemy != null) return LandscaperState.BURY_ENEMY;
 
         // If we're adjacent to HQ and HQ has dirt on it, dig from it. If can't due to being full of dirt already, place dirt beneath self
-        if (comms.hq() != null && rc.getLocation().isAdjacentTo(comms.hq()) && rc.canSenseLocation(comms.hq()) && rc.senseRobotAtLocation(comms.hq()).dirtCarrying > 0) {
+        if (comms.hq() != null && rc.getLocation().isAdjacentTo(comms.hq()) && rc.canSenseLocation(comms.hq()) && sensed.robotAt(rc, comms.hq()).dirtCarrying > 0) {
             if (rc.canDigDirt(rc.getLocation().directionTo(comms.hq()))) {
-                rc.digDirt(rc.getLocation().directionTo(comms.hq()));
+                sensed.digDirt(rc, rc.getLocation().directionTo(comms.hq()));
                 return LandscaperState.MOVE_TO_WALL;
             } else if (rc.canDepositDirt(Direction.CENTER)) {
-                rc.depositDirt(Direction.CENTER);
+                sensed.depositDirt(rc, Direction.CENTER);
                 return LandscaperState.MOVE_TO_WALL;
             }
         }
@@ -363,25 +374,25 @@ public class Landscaper extends Unit {
         // difference, go ahead and elevate ourselves via digging.
         //TODO: dig if we are farther away than this?
         Direction toGoal = rc.getLocation().directionTo(this.pathfinder.goal());
-        RobotInfo robotToGoal = rc.senseRobotAtLocation(rc.getLocation().add(toGoal));
+        RobotInfo robotToGoal = sensed.robotAt(rc, rc.getLocation().add(toGoal));
         if (rc.getLocation().distanceSquaredTo(this.pathfinder.goal()) <= 8 &&
-                rc.senseElevation(rc.getLocation()) + GameConstants.MAX_DIRT_DIFFERENCE < rc.senseElevation(rc.getLocation().add(rc.getLocation().directionTo(this.pathfinder.goal()))) &&
+                sensed.elevation(rc, rc.getLocation()) + GameConstants.MAX_DIRT_DIFFERENCE < sensed.elevation(rc, rc.getLocation().add(rc.getLocation().directionTo(this.pathfinder.goal()))) &&
                 (robotToGoal == null || robotToGoal.type != RobotType.LANDSCAPER)) {
             // Move onto the wall if we are high enough.
             Direction direct = rc.getLocation().directionTo(this.pathfinder.goal());
             if (rc.canMove(direct)) {
-                rc.move(direct);
+                sensed.move(rc, direct);
                 return LandscaperState.BUILD_WALL;
             }
 
             // Otherwise, dig from another tile and elevate ourselves.
             if (rc.canDepositDirt(Direction.CENTER)) {
-                rc.depositDirt(Direction.CENTER);
+                sensed.depositDirt(rc, Direction.CENTER);
                 return LandscaperState.MOVE_TO_WALL;
             } else {
                 Direction digFrom = smartDigDirection(rc);
                 if (digFrom != null && rc.canDigDirt(digFrom)) {
-                    rc.digDirt(digFrom);
+                    sensed.digDirt(rc, digFrom);
                     return LandscaperState.MOVE_TO_WALL;
                 }
             }
@@ -389,7 +400,7 @@ public class Landscaper extends Unit {
 
         // Move towards the wall.
         Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> BugPathfinder.canMoveF(rc, dir));
-        if (move != null && move != Direction.CENTER) rc.move(move);
+        if (move != null && move != Direction.CENTER) sensed.move(rc, move);
         this.pathfindSteps++;
 
         return LandscaperState.MOVE_TO_WALL;
@@ -406,16 +417,16 @@ public class Landscaper extends Unit {
             if (!this.closestEnemy.type.canMove()) {
                 // Destroy normal enemy buildings.
                 if (rc.getDirtCarrying() > 0) {
-                    rc.depositDirt(rc.getLocation().directionTo(this.closestEnemy.location));
+                    sensed.depositDirt(rc, rc.getLocation().directionTo(this.closestEnemy.location));
                 } else {
-                    rc.digDirt(smartDigDirection(rc));
+                    sensed.digDirt(rc, smartDigDirection(rc));
                 }
             } else {
                 // Destroy walls that landscapers are building.
                 if (rc.getDirtCarrying() > 0) {
-                    rc.depositDirt(Direction.CENTER);
+                    sensed.depositDirt(rc, Direction.CENTER);
                 } else {
-                    rc.digDirt(rc.getLocation().directionTo(this.closestEnemy.location));
+                    sensed.digDirt(rc, rc.getLocation().directionTo(this.closestEnemy.location));
                 }
             }
 
@@ -447,7 +458,7 @@ public class Landscaper extends Unit {
             return LandscaperState.MOVE_TO_WALL;
         }
 
-        int ourHeight = rc.senseElevation(rc.getLocation());
+        int ourHeight = sensed.elevation(rc, rc.getLocation());
         int terraHeight = Config.terraformHeight(rc.getRoundNum());
 
         // If we are not on the lattice, get on the lattice.
@@ -457,35 +468,35 @@ public class Landscaper extends Unit {
             for (Direction dir : Direction.cardinalDirections()) {
                 MapLocation loc = rc.getLocation().add(dir);
                 if (!rc.canSenseLocation(loc)) continue;
-                if (!rc.senseFlooding(loc) && rc.canMove(dir)) {
-                    rc.move(dir);
+                if (!sensed.flooded(rc, loc) && rc.canMove(dir)) {
+                    sensed.move(rc, dir);
                     return LandscaperState.TERRAFORM;
                 }
-                averageAdjacentElevation += rc.senseElevation(loc);
+                averageAdjacentElevation += sensed.elevation(rc, loc);
             }
 
             averageAdjacentElevation /= 4;
 
-            boolean tooHigh = averageAdjacentElevation < rc.senseElevation(rc.getLocation());
+            boolean tooHigh = averageAdjacentElevation < sensed.elevation(rc, rc.getLocation());
             if (rc.getDirtCarrying() > 0 && !tooHigh) {
-                rc.depositDirt(Direction.CENTER);
+                sensed.depositDirt(rc, Direction.CENTER);
             } else if (rc.getDirtCarrying() == 0 && !tooHigh) {
                 for (Direction dir : Direction.cardinalDirections()) {
                     if (rc.canDigDirt(dir.rotateRight())) {
-                        rc.digDirt(dir.rotateRight());
+                        sensed.digDirt(rc, dir.rotateRight());
                         break;
                     }
                 }
             } else if (rc.getDirtCarrying() > 0 && tooHigh) {
                 Direction minDirt = Direction.CENTER;
                 for (Direction direction : Direction.cardinalDirections()) {
-                    if (rc.canDigDirt(direction) && rc.senseElevation(rc.getLocation().add(direction)) <= rc.senseElevation(rc.getLocation().add(minDirt))) {
+                    if (rc.canDigDirt(direction) && sensed.elevation(rc, rc.getLocation().add(direction)) <= sensed.elevation(rc, rc.getLocation().add(minDirt))) {
                         minDirt = direction;
                     }
                 }
-                rc.depositDirt(minDirt);
+                sensed.depositDirt(rc, minDirt);
             } else {
-                rc.digDirt(Direction.CENTER);
+                sensed.digDirt(rc, Direction.CENTER);
             }
             return LandscaperState.TERRAFORM;
         }
@@ -494,10 +505,10 @@ public class Landscaper extends Unit {
         if (ourHeight < terraHeight) {
             Direction digDir = smartDigDirection(rc);
             if (rc.canDepositDirt(Direction.CENTER)) {
-                rc.depositDirt(Direction.CENTER);
+                sensed.depositDirt(rc, Direction.CENTER);
                 return LandscaperState.TERRAFORM;
             } else {
-                rc.digDirt(digDir);
+                sensed.digDirt(rc, digDir);
                 return LandscaperState.TERRAFORM;
             }
         }
@@ -523,8 +534,8 @@ public class Landscaper extends Unit {
 
     @Override
     public void onCreation(RobotController rc) throws GameActionException {
+        this.sensed = SenseCache.of(rc);
         comms = Bitconnect.initialize(rc);
-        comms.scanRecent(rc, 50);
         spawnLocation = rc.getLocation();
         if (comms.isWallDone()) state = LandscaperState.TERRAFORM;
         bolsterLocations = computeBolster(rc);
@@ -638,7 +649,7 @@ public class Landscaper extends Unit {
             if (!rc.canSenseLocation(loc)) continue;
             if (this.isWallTile(loc)) continue;
 
-            RobotInfo robot = rc.senseRobotAtLocation(loc);
+            RobotInfo robot = sensed.robotAt(rc, loc);
 
             // TODO: No matter how I try, this is ugly without using an actual comparator :(
             boolean better = false;
@@ -698,19 +709,19 @@ public class Landscaper extends Unit {
     private boolean tryTerraformMove(RobotController rc, Direction move) throws GameActionException {
         // If the movement is to a tile of a different height, then start terraforming.
         // If the target is above, then dig it out and dump it in the lowest elevation tile.
-        int moveHeight = rc.senseElevation(rc.getLocation().add(move));
-        boolean flooded = rc.senseFlooding(rc.getLocation().add(move));
+        int moveHeight = sensed.elevation(rc, rc.getLocation().add(move));
+        boolean flooded = sensed.flooded(rc, rc.getLocation().add(move));
         if (flooded || moveHeight < Config.terraformHeight(rc.getRoundNum())) {
             Direction digDir = smartDigDirection(rc);
             if (rc.canDepositDirt(move)) {
-                rc.depositDirt(move);
+                sensed.depositDirt(rc, move);
                 return false;
             } else if (rc.canDigDirt(digDir)) {
-                rc.digDirt(digDir);
+                sensed.digDirt(rc, digDir);
                 return false;
             }
         } else if (rc.canMove(move)) {
-            rc.move(move);
+            sensed.move(rc, move);
             return true;
         }
 
@@ -741,8 +752,8 @@ public class Landscaper extends Unit {
 
                 MapLocation loc = new MapLocation(us.x + dx, us.y + dy);
                 if (!rc.onTheMap(loc) || !rc.canSenseLocation(loc) || !onLattice(loc)
-                    || rc.isLocationOccupied(loc)) continue;
-                if (rc.senseElevation(loc) >= terraHeight) continue;
+                    || sensed.isOccupied(rc, loc)) continue;
+                if (sensed.elevation(rc, loc) >= terraHeight) continue;
 
                 int dist = loc.distanceSquaredTo(comms.hq());
                 if (dist < bestDistance) {
@@ -759,14 +770,15 @@ public class Landscaper extends Unit {
      * A 'landscaper move', which allows the pathfinder to take a step in a direction if we can terraform the tile to be close
      */
     private static boolean canMoveL(RobotController rc, Direction dir) throws GameActionException {
-        int height = rc.senseElevation(rc.getLocation());
+        SenseCache sensed = SenseCache.of(rc);
+        int height = sensed.elevation(rc, rc.getLocation());
 
         MapLocation target = rc.getLocation().add(dir);
         if (!rc.canSenseLocation(target)) return false;
-        if (rc.isLocationOccupied(target)) return false;
+        if (sensed.isOccupied(rc, target)) return false;
 
-        int targetHeight = rc.senseElevation(target);
-        if (targetHeight >= height) return rc.canMove(dir);
+        int targetHeight = sensed.elevation(rc, target);
+        if (targetHeight >= height) return rc.canMove(dir) && FloodForecast.safeToEnter(rc, target);
         if (targetHeight <= -100) return false;
         return true;
     }
@@ -0,0 +1,263 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * A bug pathfinder which, whenever it runs into an obstacle and the turn has bytecodes to spare, does a breadth-first
+ * search over the sensed terrain around the unit for a way past it. The search is confined to a small window around the
+ * unit and stops early if the bytecode budget runs low, taking the best tile it has reached so far; if it has found
+ * nothing better, plain bug pathfinding takes over for the turn. On long trips, the planner also starts a PathSearch over the unit's remembered
+ * terrain, and heads for the waypoints it hands out rather than straight for the goal.
+ */
+public class LocalPlanner extends BugPathfinder {
+    // Side length and number of tiles of the search window centered on the unit.
+    private static final int SIZE = 2 * Config.PLANNER_RADIUS + 1;
+    private static final int TILES = SIZE * SIZE;
+
+    // Directions other than CENTER, in the order the search expands them.
+    private static final Direction[] DIRECTIONS = {
+        Direction.NORTH, Direction.NORTHEAST, Direction.EAST, Direction.SOUTHEAST,
+        Direction.SOUTH, Direction.SOUTHWEST, Direction.WEST, Direction.NORTHWEST
+    };
+
+    // Search state for every window tile, valid only when the tile's stamp matches the current search. The first step
+    // is the index into DIRECTIONS of the move out of the window center which leads to the tile.
+    // Shared by all of a unit's planners, since only one plans at a time.
+    private static final int[] stamps = new int[TILES], firstSteps = new int[TILES], elevations = new int[TILES];
+    private static final int[] queue = new int[TILES];
+    private static int search = 0;
+
+    /** Create a planner for the given unit pathfinding to the given location. */
+    public static LocalPlanner pathfindTo(RobotController rc, MapMemory memory, PathSearch pathSearch, MapLocation goal,
+                                          FollowingDirection preferred, boolean allowAdjacent) {
+        return new LocalPlanner(rc, memory, pathSearch, goal, preferred, allowAdjacent);
+    }
+
+    // The controller used to sense the terrain around the unit.
+    private final RobotController rc;
+    // The unit's map memory; tiles already seen this round are read from it instead of sensed again.
+    private final MapMemory memory;
+    // The unit's long-range search, and the id of the search we started on it (0 if none).
+    private final PathSearch pathSearch;
+    private int pathSearchId;
+
+    private LocalPlanner(RobotController rc, MapMemory memory, PathSearch pathSearch, MapLocation goal,
+                         FollowingDirection preferredDirection, boolean allowAdjacent) {
+        super(goal, preferredDirection, allowAdjacent);
+        this.rc = rc;
+        this.memory = memory;
+        this.pathSearch = pathSearch;
+        this.pathSearchId = 0;
+    }
+
+    @Override
+    public Direction findMove(MapLocation loc, Utils.GameFunction<Direction, Boolean> walkable) throws GameActionException {
+        if (this.finished(loc)) return Direction.CENTER;
+
+        this.followPathSearch(loc);
+        MapLocation target = this.waypoint();
+
+        // Nothing in the way; the bug pathfinder heads straight for the waypoint.
+        if (!this.isFollowing() && walkable.apply(loc.directionTo(target))) return super.findMove(loc, walkable);
+
+        // Only take a detour the search finds if it gets us closer than where we hit the obstacle, so we don't
+        // wander back into the pocket we're following our way out of.
+        int threshold = loc.distanceSquaredTo(target);
+        if (this.isFollowing()) threshold = Math.min(threshold, this.obstacleDistance());
+
+        if (Clock.getBytecodesLeft() >= Config.PLANNER_MIN_BYTECODES) {
+            Direction planned = this.plan(loc, walkable, threshold);
+            if (planned != null) {
+                this.stopFollowing();
+                return planned;
+            }
+        }
+
+        return super.findMove(loc, walkable);
+    }
+
+    /**
+     * On long trips, start a search towards the goal on the first move, and from then on take the search's latest
+     * waypoint. Waypoints are only swapped while we aren't following an obstacle, so a wall follow runs its course.
+     */
+    private void followPathSearch(MapLocation loc) {
+        if (this.pathSearchId == 0) {
+            if (loc.distanceSquaredTo(this.goal()) < Config.PATH_SEARCH_MIN_DISTANCE_SQUARED) return;
+            this.pathSearchId = this.pathSearch.start(loc, this.goal(), rc.getRoundNum());
+        }
+
+        // Some other pathfinder of ours has taken the search over since.
+        if (this.pathSearch.id() != this.pathSearchId) return;
+
+        if (this.pathSearch.isStale()) {
+            this.pathSearchId = this.pathSearch.start(loc, this.goal(), rc.getRoundNum());
+            this.setWaypoint(this.goal());
+            return;
+        }
+
+        MapLocation waypoint = this.pathSearch.waypoint(loc);
+        if (waypoint == null || this.isFollowing() || waypoint.equals(this.waypoint())) return;
+        this.setWaypoint(waypoint.equals(loc) ? this.goal() : waypoint);
+    }
+
+    /**
+     * Search outward from the given location for the reachable sensed tile closest to the waypoint. Returns the first move
+     * on the shortest path to it, or null if no reachable tile is closer than the threshold. If the bytecodes run low,
+     * the search stops where it is and the closest tile reached so far is used; it's still closer than the threshold,
+     * so the move still gets us somewhere. Moves out of the center use the unit's own walkable check; further moves use
+     * the sensed terrain, and avoid low tiles next to water which may flood before we get there.
+     */
+    private Direction plan(MapLocation loc, Utils.GameFunction<Direction, Boolean> walkable, int threshold) throws GameActionException {
+        MapLocation goal = this.waypoint();
+        int round = rc.getRoundNum();
+        float floodLevel = FloodForecast.levelIn(rc, Config.PLANNER_RADIUS + Config.FLOOD_FORECAST_ROUNDS);
+        int stamp = ++search;
+        int originX = loc.x - Config.PLANNER_RADIUS, originY = loc.y - Config.PLANNER_RADIUS;
+        int head = 0, tail = 0;
+
+        int center = Config.PLANNER_RADIUS + Config.PLANNER_RADIUS * SIZE;
+        stamps[center] = stamp;
+        elevations[center] = this.elevation(loc, round);
+
+        int best = -1;
+        int bestDistance = threshold;
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (!walkable.apply(DIRECTIONS[i])) continue;
+
+            MapLocation next = loc.add(DIRECTIONS[i]);
+            int index = (next.x - originX) + (next.y - originY) * SIZE;
+            stamps[index] = stamp;
+            firstSteps[index] = i;
+            elevations[index] = this.elevation(next, round);
+            queue[tail++] = index;
+
+            int distance = next.distanceSquaredTo(goal);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = index;
+            }
+        }
+
+        while (head < tail && bestDistance > 0) {
+            if (Clock.getBytecodesLeft() < Config.PLANNER_BYTECODE_RESERVE) break;
+
+            int index = queue[head++];
+            int x = index % SIZE, y = index / SIZE;
+
+            for (Direction dir : DIRECTIONS) {
+                int nx = x + dir.getDeltaX(), ny = y + dir.getDeltaY();
+                if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE) continue;
+
+                int nindex = nx + ny * SIZE;
+                if (stamps[nindex] == stamp) continue;
+
+                // A ground unit can step onto sensed, dry tiles within the dirt difference without a building on them;
+                // other units are assumed to move out of the way.
+                int tx = nx + originX, ty = ny + originY;
+                if (!memory.contains(tx, ty)) continue;
+                if (!memory.seenOn(tx, ty, round)) {
+                    MapLocation next = new MapLocation(tx, ty);
+                    if (!rc.canSenseLocation(next)) continue;
+                    memory.sense(rc, next);
+                }
+
+                if (memory.isFlooded(tx, ty) || memory.hasBuilding(tx, ty)) continue;
+                int elevation = memory.elevation(tx, ty);
+                if (Math.abs(elevation - elevations[index]) > GameConstants.MAX_DIRT_DIFFERENCE) continue;
+                if (FloodForecast.below(elevation, floodLevel) && this.nextToWater(tx, ty, round)) continue;
+
+                stamps[nindex] = stamp;
+                firstSteps[nindex] = firstSteps[index];
+                elevations[nindex] = elevation;
+                queue[tail++] = nindex;
+
+                int dx = tx - goal.x, dy = ty - goal.y;
+                int distance = dx * dx + dy * dy;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = nindex;
+                }
+            }
+        }
+
+        return best == -1 ? null : DIRECTIONS[firstSteps[best]];
+    }
+
+    /**
+     * Walk the wall follow out over the terrain for up to BUG_PROBE_STEPS moves, the way the bug pathfinder would take
+     * it, until we're closer to the waypoint than where we hit the obstacle and can head straight for it. The estimate
+     * is the moves taken plus the moves left from there; tiles beyond sensor range we haven't seen are assumed open.
+     */
+    @Override
+    protected int estimateFollow(MapLocation loc, Direction heading, FollowingDirection direction) throws GameActionException {
+        if (Clock.getBytecodesLeft() < Config.PLANNER_MIN_BYTECODES) return -1;
+
+        MapLocation goal = this.waypoint();
+        int round = rc.getRoundNum();
+        int obstacleDistance = loc.distanceSquaredTo(goal);
+
+        MapLocation at = loc;
+        int elevation = this.elevation(loc, round);
+        for (int steps = 0; steps < Config.BUG_PROBE_STEPS; steps++) {
+            if (Clock.getBytecodesLeft() < Config.PLANNER_BYTECODE_RESERVE) return -1;
+
+            Direction direct = at.directionTo(goal);
+            if (steps > 0 && at.distanceSquaredTo(goal) < obstacleDistance && this.probeWalkable(at, direct, elevation, round)) {
+                return steps + moves(at, goal);
+            }
+
+            Direction move = direction.alongWall(heading);
+            if (this.probeWalkable(at, move, elevation, round)) {
+                heading = direction.alongWall(move);
+            } else {
+                move = heading;
+                while (!this.probeWalkable(at, move, elevation, round)) {
+                    move = direction.againstWall(move);
+                    if (move == heading) return -1;
+                }
+
+                heading = Utils.isCardinal(move) ? move : direction.alongWall(move);
+            }
+
+            at = at.add(move);
+            if (memory.isKnown(at.x, at.y)) elevation = memory.elevation(at.x, at.y);
+        }
+
+        return Config.BUG_PROBE_STEPS + moves(at, goal);
+    }
+
+    /**
+     * True if the probe expects a ground unit at the given location and elevation to be able to move in the given
+     * direction. Sensable tiles are sensed if not seen this round; other remembered tiles are taken as remembered.
+     */
+    private boolean probeWalkable(MapLocation at, Direction dir, int elevation, int round) throws GameActionException {
+        MapLocation next = at.add(dir);
+        if (!memory.contains(next.x, next.y)) return false;
+        if (!memory.seenOn(next.x, next.y, round) && rc.canSenseLocation(next)) memory.sense(rc, next);
+        if (!memory.isKnown(next.x, next.y)) return true;
+
+        if (memory.isFlooded(next.x, next.y) || memory.hasBuilding(next.x, next.y)) return false;
+        return Math.abs(memory.elevation(next.x, next.y) - elevation) <= GameConstants.MAX_DIRT_DIFFERENCE;
+    }
+
+    /** The number of moves between the two locations ignoring terrain, diagonals included. */
+    private static int moves(MapLocation from, MapLocation to) {
+        return Math.max(Math.abs(from.x - to.x), Math.abs(from.y - to.y));
+    }
+
+    /** True if a tile next to the given one was seen flooded this round. */
+    private boolean nextToWater(int x, int y, int round) {
+        for (Direction dir : DIRECTIONS) {
+            int ax = x + dir.getDeltaX(), ay = y + dir.getDeltaY();
+            if (memory.contains(ax, ay) && memory.seenOn(ax, ay, round) && memory.isFlooded(ax, ay)) return true;
+        }
+
+        return false;
+    }
+
+    /** The elevation of the given sensable tile, from memory if it was already seen this round. */
+    private int elevation(MapLocation loc, int round) throws GameActionException {
+        if (!memory.seenOn(loc.x, loc.y, round)) memory.sense(rc, loc);
+        return memory.elevation(loc.x, loc.y);
+    }
+}
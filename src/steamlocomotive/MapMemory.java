@@ -0,0 +1,101 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * A unit's memory of the terrain it has sensed: elevation, flooding, soup, whether a building stands on the tile, and
+ * the round it was last seen, for every tile on the map. Tiles are recorded as they are scanned, so pathfinding and
+ * target selection can look them up later (or again in the same turn) without sensing them again.
+ */
+public class MapMemory {
+    // A tile is packed into one int: the elevation in the low 16 bits (signed), the round it was last seen in the next
+    // 12 (enough for a full game), then flags.
+    private static final int ELEVATION_MASK = 0xFFFF;
+    private static final int ROUND_SHIFT = 16, ROUND_MASK = 0xFFF;
+    private static final int FLOODED = 1 << 28, BUILDING = 1 << 29, SEEN = 1 << 30;
+
+    // Map width and height.
+    private final int width, height;
+
+    // Packed tile state and the soup on each tile (x + y * width); tiles never seen are 0.
+    private final int[] tiles, soup;
+
+    public MapMemory(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.tiles = new int[width * height];
+        this.soup = new int[width * height];
+    }
+
+    /** True if the given coordinates are on the map. */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /** Record the state of the given tile as seen on the given round. */
+    public void record(MapLocation loc, int elevation, boolean flooded, int soupAmount, boolean building, int round) {
+        int tile = SEEN | (elevation & ELEVATION_MASK) | ((round & ROUND_MASK) << ROUND_SHIFT);
+        if (flooded) tile |= FLOODED;
+        if (building) tile |= BUILDING;
+
+        int index = loc.x + loc.y * width;
+        this.tiles[index] = tile;
+        this.soup[index] = soupAmount;
+    }
+
+    /** Note that a building stands on the given tile, if we know it, without changing when it was last seen. */
+    public void markBuilding(MapLocation loc) {
+        int index = loc.x + loc.y * width;
+        if ((this.tiles[index] & SEEN) != 0) this.tiles[index] |= BUILDING;
+    }
+
+    /** Update the soup on the given tile, if we know it, without changing when it was last seen. */
+    public void recordSoup(MapLocation loc, int soupAmount) {
+        int index = loc.x + loc.y * width;
+        if ((this.tiles[index] & SEEN) != 0) this.soup[index] = soupAmount;
+    }
+
+    /** Sense everything about the given (sensable) tile and record it. */
+    public void sense(RobotController rc, MapLocation loc) throws GameActionException {
+        boolean building = false;
+        if (rc.isLocationOccupied(loc)) {
+            RobotInfo robot = rc.senseRobotAtLocation(loc);
+            building = robot != null && robot.type.isBuilding();
+        }
+
+        this.record(loc, rc.senseElevation(loc), rc.senseFlooding(loc), rc.senseSoup(loc), building, rc.getRoundNum());
+    }
+
+    /** True if the tile has ever been seen. */
+    public boolean isKnown(int x, int y) {
+        return (this.tiles[x + y * width] & SEEN) != 0;
+    }
+
+    /** True if the tile was seen on the given round, so what we remember about it is current. */
+    public boolean seenOn(int x, int y, int round) {
+        int tile = this.tiles[x + y * width];
+        return (tile & SEEN) != 0 && ((tile >>> ROUND_SHIFT) & ROUND_MASK) == (round & ROUND_MASK);
+    }
+
+    /** The round the tile was last seen, or -1 if it never has been. */
+    public int lastSeen(int x, int y) {
+        int tile = this.tiles[x + y * width];
+        return (tile & SEEN) == 0 ? -1 : (tile >>> ROUND_SHIFT) & ROUND_MASK;
+    }
+
+    public int elevation(int x, int y) {
+        return (short) this.tiles[x + y * width];
+    }
+
+    public boolean isFlooded(int x, int y) {
+        return (this.tiles[x + y * width] & FLOODED) != 0;
+    }
+
+    public boolean hasBuilding(int x, int y) {
+        return (this.tiles[x + y * width] & BUILDING) != 0;
+    }
+
+    public int soup(int x, int y) {
+        return this.soup[x + y * width];
+    }
+}
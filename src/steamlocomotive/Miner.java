@@ -31,7 +31,7 @@ public class Miner extends Unit {
     // The number of steps that have been taken while pathfinding.
     private int pathfindSteps;
     // Clusters seen soup locations.
-    private Utils.Clusterer soups;
+    private SoupClusters soups;
     // The location of the refinery/HQ we are dumping resources at, as well as the last seen fulfillment and design centers.
     private MapLocation refinery, fulfillment, design, netGun, vaporator;
     // Communication Object
@@ -48,7 +48,7 @@ public class Miner extends Unit {
         this.pathfindSteps = 0;
         this.refinery = this.fulfillment = this.design = this.netGun = this.vaporator = null;
         this.state = MinerState.ROAMING;
-        this.soups = new Utils.Clusterer(Config.NUM_SOUP_CLUSTERS, Config.MAX_CLUSTER_DISTANCE);
+        this.soups = new SoupClusters(Config.NUM_SOUP_CLUSTERS, Config.MAX_CLUSTER_DISTANCE);
 
         this.triedBuilding = false;
     }
@@ -140,33 +140,35 @@ public class Miner extends Unit {
 
     /** Update soup cluster and dropoff state. */
     public void scanSurroundings(RobotController rc) throws GameActionException {
+        // Sense everything we can see once; the building and threat checks below all read from it.
+        Perception nearby = this.perception();
+        nearby.sense(rc);
+
         // Update the closest refinery.
-        // TODO: Reduce number of scan calls to 1 instead of 5.
-        Utils.ClosestRobot closeRefinery = Utils.closestRobot(rc, RobotType.REFINERY, rc.getTeam());
         int refineDistance = this.refinery == null ? Integer.MAX_VALUE : this.refinery.distanceSquaredTo(rc.getLocation());
-        if (closeRefinery.distance < refineDistance) this.refinery = closeRefinery.robot.getLocation();
+        if (nearby.distance(RobotType.REFINERY, rc.getTeam()) < refineDistance) this.refinery = nearby.nearest(RobotType.REFINERY, rc.getTeam()).location;
 
         // Update closest of the other buildings: fulfillment and designs.
-        Utils.ClosestRobot closeFulfillment = Utils.closestRobot(rc, RobotType.FULFILLMENT_CENTER, rc.getTeam());
         int fulfillDistance = this.fulfillment == null ? Integer.MAX_VALUE : this.fulfillment.distanceSquaredTo(rc.getLocation());
-        if  (closeFulfillment.distance < fulfillDistance) this.fulfillment = closeFulfillment.robot.getLocation();
+        if (nearby.distance(RobotType.FULFILLMENT_CENTER, rc.getTeam()) < fulfillDistance) this.fulfillment = nearby.nearest(RobotType.FULFILLMENT_CENTER, rc.getTeam()).location;
 
-        Utils.ClosestRobot closeDesign = Utils.closestRobot(rc, RobotType.DESIGN_SCHOOL, rc.getTeam());
         int designDistance = this.design == null ? Integer.MAX_VALUE : this.design.distanceSquaredTo(rc.getLocation());
-        if (closeDesign.distance < designDistance) this.design = closeDesign.robot.location;
+        if (nearby.distance(RobotType.DESIGN_SCHOOL, rc.getTeam()) < designDistance) this.design = nearby.nearest(RobotType.DESIGN_SCHOOL, rc.getTeam()).location;
 
-        Utils.ClosestRobot closeNetGun = Utils.closestRobot(rc, RobotType.NET_GUN, rc.getTeam());
         int netGunDistance = this.netGun == null ? Integer.MAX_VALUE : this.netGun.distanceSquaredTo(rc.getLocation());
-        if (closeNetGun.distance < netGunDistance) this.netGun = closeNetGun.robot.location;
+        if (nearby.distance(RobotType.NET_GUN, rc.getTeam()) < netGunDistance) this.netGun = nearby.nearest(RobotType.NET_GUN, rc.getTeam()).location;
 
-        Utils.ClosestRobot closeVaporator = Utils.closestRobot(rc, RobotType.VAPORATOR, rc.getTeam());
         int vaporatorDistance = this.vaporator == null ? Integer.MAX_VALUE : this.vaporator.distanceSquaredTo(rc.getLocation());
-        if (closeVaporator.distance < vaporatorDistance) this.vaporator = closeVaporator.robot.location;
+        if (nearby.distance(RobotType.VAPORATOR, rc.getTeam()) < vaporatorDistance) this.vaporator = nearby.nearest(RobotType.VAPORATOR, rc.getTeam()).location;
+
+        // Remember the terrain for pathfinding; the tile we're standing on is evidence about the map's symmetry.
+        this.recordTerrain(rc, nearby.robots());
+        comms.notifyTileSensed(rc, rc.getLocation(), rc.senseElevation(rc.getLocation()));
 
         // Update the location of the enemy HQ if needed.
         if (comms.enemyHq() == null) {
-            Utils.ClosestRobot enemyHqLoc = Utils.closestRobot(rc, RobotType.HQ, rc.getTeam().opponent());
-            if (enemyHqLoc.robot != null) comms.notifyEnemyBase(enemyHqLoc.robot.getLocation());
+            RobotInfo enemyHq = nearby.nearest(RobotType.HQ, rc.getTeam().opponent());
+            if (enemyHq != null) comms.notifyEnemyBase(enemyHq.getLocation());
 
             // Eliminate potential enemy locations.
             if (comms.potentialEnemyLocations() != null) {
@@ -179,13 +181,15 @@ public class Miner extends Unit {
             }
         }
 
-        // Check and clear representatives if they are no longer present.
-        this.soups.clearInvalid(rc, loc -> rc.canSenseLocation(loc) && (rc.senseFlooding(loc) || rc.senseSoup(loc) == 0));
-
-        // Soup memory; track recently seen soup clusters.
-        MapLocation[] sensedSoup = rc.senseNearbySoup();
+        // Soup memory; remember the soup on each tile, re-total the soup clusters we can see, and pick up new ones.
+        MapLocation[] sensedSoup = nearby.soup();
+        int[] soupAmounts = nearby.soupAmounts();
+        comms.notifySoupSensed(rc, sensedSoup, soupAmounts);
+        MapMemory memory = this.memory();
+        this.soups.beginScan(rc.getLocation(), rc.getRoundNum(), rc.getCurrentSensorRadiusSquared());
         for (int i = 0; i < sensedSoup.length; i++) {
             MapLocation soupLoc = sensedSoup[i];
+            memory.recordSoup(soupLoc, soupAmounts[i]);
             if (rc.canSenseLocation(soupLoc)) {
                 if (rc.senseFlooding(soupLoc)) {
                     boolean hasSolidAdj = false;
@@ -199,8 +203,9 @@ public class Miner extends Unit {
                 }
             }
 
-            this.soups.update(rc, soupLoc, this.rng);
+            this.soups.observe(soupLoc, soupAmounts[i]);
         }
+        this.soups.endScan();
     }
 
     /** Scan for dangerous enemies and potentially reactively build defenses. */
@@ -208,23 +213,18 @@ public class Miner extends Unit {
         // Can't take any actions.
         if (!rc.isReady()) return;
 
-        Utils.ClosestRobot closestDrone = Utils.closestRobot(rc, RobotType.DELIVERY_DRONE, rc.getTeam().opponent());
-        if(closestDrone.robot == null) return;
+        Perception nearby = this.perception();
+        RobotInfo closestDrone = nearby.nearest(RobotType.DELIVERY_DRONE, rc.getTeam().opponent());
+        if (closestDrone == null) return;
+        int droneDistance = nearby.distance(RobotType.DELIVERY_DRONE, rc.getTeam().opponent());
 
-        RobotInfo[] nearbyRobots = rc.senseNearbyRobots(rc.getLocation(), GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED, rc.getTeam());
-        boolean foundNetgun = false;
-        for(RobotInfo info: nearbyRobots) {
-            if(info.type == RobotType.NET_GUN) {
-                foundNetgun = true;
-                break;
-            }
-        }
+        boolean foundNetgun = nearby.countWithin(RobotType.NET_GUN, rc.getTeam(), GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED) > 0;
 
         // Check for enemy drones and try to build a net gun
         if (rc.getTeamSoup() >= RobotType.VAPORATOR.cost - 150) {
-            if (!foundNetgun && closestDrone.distance <= 40) {
-                if (rc.canBuildRobot(RobotType.NET_GUN, rc.getLocation().directionTo(closestDrone.robot.location))) {
-                    rc.buildRobot(RobotType.NET_GUN, rc.getLocation().directionTo(closestDrone.robot.location));
+            if (!foundNetgun && droneDistance <= 40) {
+                if (rc.canBuildRobot(RobotType.NET_GUN, rc.getLocation().directionTo(closestDrone.location))) {
+                    rc.buildRobot(RobotType.NET_GUN, rc.getLocation().directionTo(closestDrone.location));
                     return;
                 }
                 else {
@@ -239,8 +239,8 @@ public class Miner extends Unit {
         }
 
         //If can't build a net gun and drone is too close try to move directly away from the enemy drone
-        if (closestDrone.distance <= 13) {
-            Direction runAwayDirection = closestDrone.robot.location.directionTo(rc.getLocation());
+        if (droneDistance <= 13) {
+            Direction runAwayDirection = closestDrone.location.directionTo(rc.getLocation());
             if (rc.canMove(runAwayDirection) && !rc.senseFlooding(rc.getLocation().add(runAwayDirection))) {
                 rc.move(runAwayDirection);
                 return;
@@ -278,8 +278,11 @@ public class Miner extends Unit {
 
         // Otherwise, roam around looking for soup and other objects of interest.
         if (this.pathfinder == null || this.pathfinder.finished(rc.getLocation()) || this.pathfindSteps > Config.MAX_ROAM_DISTANCE) {
-            // TODO: More intelligent target selection. We choose randomly for now.
-            MapLocation target = new MapLocation(this.rng.nextInt(rc.getMapWidth()), this.rng.nextInt(rc.getMapHeight()));
+            // Head for the best soup region the team knows of. If there are none, or we just got there and it's still
+            // the best (so we found nothing new on the way), choose randomly.
+            MapLocation target = comms.soupMap().bestTarget(rc.getLocation());
+            if (target == null || (this.pathfinder != null && target.equals(this.pathfinder.goal())))
+                target = new MapLocation(this.rng.nextInt(rc.getMapWidth()), this.rng.nextInt(rc.getMapHeight()));
 
             this.pathfinder = this.newPathfinder(target, true);
             this.pathfindSteps = 0;
@@ -325,13 +328,13 @@ public class Miner extends Unit {
 
         // If we've been travelling for too long, set all soup locations to null and roam
         if (this.pathfindSteps > 200) {
-            soups.clearInvalid(rc, loc -> true);
+            soups.clear();
             this.pathfinder = null;
             return MinerState.ROAMING;
         }
 
-        // If no pathfinder, create it to the closest soup.
-        MapLocation closest = soups.closest(rc.getLocation());
+        // If no pathfinder, create it to the soup field most worth the trip.
+        MapLocation closest = soups.best(rc.getLocation(), rc.getRoundNum());
         if (closest == null) return MinerState.ROAMING;
 
         if (this.pathfinder == null || !this.pathfinder.goal().equals(closest))
@@ -388,8 +391,10 @@ public class Miner extends Unit {
         // If we've taken too many steps to drop off, then consider building a refinery right now.
         if (this.pathfindSteps >= Config.MAX_ROAM_DISTANCE) return MinerState.DREAMING_ABOUT_REFINERY;
 
-        // Obtain a movement from the pathfinder and follow it.
-        Direction move = this.pathfinder.findMove(rc.getLocation(), dir -> BugPathfinder.canMoveF(rc, dir));
+        // Near the HQ, follow its flow field home rather than bugging around the buildings; otherwise use the pathfinder.
+        Direction move = this.refinery.equals(comms.hq()) ? comms.homeDirection(rc.getLocation()) : null;
+        if (move == null || !BugPathfinder.canMoveF(rc, move))
+            move = this.pathfinder.findMove(rc.getLocation(), dir -> BugPathfinder.canMoveF(rc, dir));
         if (move != null && move != Direction.CENTER) rc.move(move);
         this.pathfindSteps++;
 
@@ -577,7 +582,6 @@ public class Miner extends Unit {
     @Override
     public void onCreation(RobotController rc) throws GameActionException {
         comms = Bitconnect.initialize(rc);
-        comms.scanRecent(rc, 50);
 
         // Search for HQ/refinery for our initial dropoff. This may change in the future.
         RobotInfo refine = Utils.closestRobot(rc, robot -> robot.getType() == RobotType.REFINERY || robot.getType() == RobotType.HQ, rc.getTeam()).robot;
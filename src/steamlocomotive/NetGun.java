@@ -6,17 +6,36 @@ import battlecode.common.RobotType;
 
 public class NetGun extends Unit {
 
+    // Comms object
+    private Bitconnect comms;
+
+    // The round that we broadcasted the last heartbeat.
+    private int lastHeartbeatRound = 0;
+
     public NetGun(int id) {
         super(id);
     }
 
     @Override
     public void run(RobotController rc, int turn) throws GameActionException {
+        // Send out a heartbeat of our existence.
+        if (rc.getRoundNum() - lastHeartbeatRound >= Bitconnect.HEARTBEAT_CADENCE) {
+            comms.notifyHeartbeat(rc.getID(), rc.getLocation(), rc.getType(), rc.getRoundNum());
+            lastHeartbeatRound = rc.getRoundNum();
+        }
+
+        comms.updateForTurn(rc);
+
         if (!rc.isReady()) return;
 
         NetGun.findAndShoot(rc);
     }
 
+    @Override
+    public void onCreation(RobotController rc) throws GameActionException {
+        comms = Bitconnect.initialize(rc);
+    }
+
     public static boolean findAndShoot(RobotController rc) throws GameActionException {
         Utils.ClosestRobot closestEnemy = Utils.closestRobot(rc,
                 robot -> robot.type == RobotType.DELIVERY_DRONE && rc.canShootUnit(robot.getID()), rc.getTeam().opponent());
@@ -0,0 +1,279 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * An A* search over a unit's remembered terrain, run a slice at a time with whatever bytecodes are left at the end of
+ * its turns. Tiles the unit hasn't seen are optimistically assumed passable. The open and closed sets persist between
+ * turns; until the search reaches the goal, the expanded node closest to the goal serves as a waypoint, and once it
+ * does, the path is handed out a few steps at a time as the unit walks along it. Remembered tiles which will be under
+ * water by the time the unit could get to them cost extra, so paths keep to high ground where they can.
+ */
+public class PathSearch {
+    // Heap entries pack the f cost, the heuristic (so ties go to nodes nearer the goal) and the node into one int.
+    private static final int NODE_BITS = 12, H_BITS = 7, F_BITS = 12;
+    private static final int NODE_MASK = (1 << NODE_BITS) - 1, H_MASK = (1 << H_BITS) - 1, F_MAX = (1 << F_BITS) - 1;
+    private static final int H_SHIFT = NODE_BITS, F_SHIFT = NODE_BITS + H_BITS;
+
+    // Directions other than CENTER.
+    private static final Direction[] DIRECTIONS = {
+        Direction.NORTH, Direction.NORTHEAST, Direction.EAST, Direction.SOUTHEAST,
+        Direction.SOUTH, Direction.SOUTHWEST, Direction.WEST, Direction.NORTHWEST
+    };
+
+    // The terrain we search over, and the map width and height.
+    private final MapMemory memory;
+    private final int width, height;
+
+    // Cost from the start and parent of each node (x + y * width), valid only when its stamp matches the current search.
+    private final int[] stamps, costs, parents;
+    // Expanded nodes have their closed stamp set to the current search.
+    private final int[] closed;
+
+    // Binary min-heap of packed open entries. Nodes are pushed again when reached more cheaply, and the stale entries
+    // skipped when popped; if the heap fills up, further pushes are dropped.
+    private final int[] heap;
+    private int heapSize;
+
+    // Identifies the current search; 0 if none has been started.
+    private int search;
+    // The start and goal nodes.
+    private int start, goal;
+    // The water level forecast for when the unit gets to the goal; lower tiles are penalized.
+    private float floodLevel;
+    // The expanded node closest to the goal, and its heuristic.
+    private int best, bestH;
+    // True once the goal has been reached or there is nothing left to expand.
+    private boolean done;
+
+    // The path from the start to the goal once it's been reached, and the furthest index along it the unit has been by.
+    private final int[] path;
+    private int pathLength, cursor;
+
+    public PathSearch(MapMemory memory, int width, int height) {
+        int tiles = width * height;
+
+        this.memory = memory;
+        this.width = width;
+        this.height = height;
+        this.stamps = new int[tiles];
+        this.costs = new int[tiles];
+        this.parents = new int[tiles];
+        this.closed = new int[tiles];
+        this.heap = new int[2 * tiles];
+        this.path = new int[tiles];
+        this.search = 0;
+        this.done = true;
+    }
+
+    /**
+     * Start a new search between the given locations in the given round, abandoning any search in progress; returns
+     * its id.
+     */
+    public int start(MapLocation from, MapLocation to, int round) {
+        this.search++;
+        this.start = from.x + from.y * width;
+        this.goal = to.x + to.y * width;
+        this.heapSize = 0;
+        this.pathLength = 0;
+        this.cursor = 0;
+        this.done = false;
+
+        int h = this.heuristic(from.x, from.y);
+        this.floodLevel = GameConstants.getWaterLevel(round + h + Config.FLOOD_FORECAST_ROUNDS);
+        this.best = this.start;
+        this.bestH = h;
+        this.stamps[start] = search;
+        this.costs[start] = 0;
+        this.parents[start] = start;
+        this.push(h, h, start);
+        return this.search;
+    }
+
+    /** The id of the current search, or 0 if none has been started. */
+    public int id() {
+        return this.search;
+    }
+
+    /** True once the search has found the goal or given up on it. */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /** True if the search has found a path all the way to the goal. */
+    public boolean hasPath() {
+        return this.pathLength > 0;
+    }
+
+    /** Expand nodes until the search is done or the turn is down to the given number of bytecodes. */
+    public void step(int bytecodeReserve) {
+        while (!this.done && Clock.getBytecodesLeft() > bytecodeReserve) this.expandNext();
+    }
+
+    /**
+     * Expand up to the given number of nodes (popping a stale heap entry counts as one), or until the search is done,
+     * whatever the bytecodes; for budgeting the search by work done rather than by the clock.
+     */
+    public void expand(int maxNodes) {
+        for (int i = 0; i < maxNodes && !this.done; i++) this.expandNext();
+    }
+
+    /** Pop the cheapest open node and expand it, finishing the search if it's the goal or there is nothing left. */
+    private void expandNext() {
+        if (this.heapSize == 0) {
+            this.done = true;
+            return;
+        }
+
+        int entry = this.pop();
+        int node = entry & NODE_MASK;
+        if (this.closed[node] == this.search) return;
+        this.closed[node] = this.search;
+
+        int h = (entry >>> H_SHIFT) & H_MASK;
+        if (h < this.bestH) {
+            this.best = node;
+            this.bestH = h;
+        }
+
+        if (node == this.goal) {
+            this.done = true;
+            this.tracePath();
+            return;
+        }
+
+        int x = node % width, y = node / width;
+        int cost = this.costs[node] + 1;
+        for (Direction dir : DIRECTIONS) {
+            int nx = x + dir.getDeltaX(), ny = y + dir.getDeltaY();
+            if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+
+            int next = nx + ny * width;
+            if (this.closed[next] == this.search) continue;
+            // The goal itself is always enterable, since it's often a building we only need to get next to.
+            if (next != this.goal && !this.passable(x, y, nx, ny)) continue;
+
+            int nextCost = next != this.goal && this.floodRisk(nx, ny) ? cost + Config.FLOOD_RISK_PENALTY : cost;
+            if (this.stamps[next] == this.search && this.costs[next] <= nextCost) continue;
+
+            this.stamps[next] = this.search;
+            this.costs[next] = nextCost;
+            this.parents[next] = node;
+
+            int nh = this.heuristic(nx, ny);
+            this.push(nextCost + nh, nh, next);
+        }
+    }
+
+    /**
+     * The location the unit at the given location should head towards next: a few steps further along the path if one
+     * has been found, or otherwise the node closest to the goal found so far. Returns null if the search has nothing
+     * better to offer than heading straight for the goal.
+     */
+    public MapLocation waypoint(MapLocation at) {
+        if (this.search == 0) return null;
+        if (this.pathLength == 0) return this.best == this.start ? null : this.location(this.best);
+
+        // Advance along the path to the furthest node (looking a little ahead) that we are on or next to.
+        int end = Math.min(this.pathLength, this.cursor + 2 * Config.PATH_WAYPOINT_SPACING);
+        for (int i = this.cursor; i < end; i++) {
+            int dx = this.path[i] % width - at.x, dy = this.path[i] / width - at.y;
+            if (dx * dx + dy * dy <= 2) this.cursor = i;
+        }
+
+        return this.location(this.path[Math.min(this.cursor + Config.PATH_WAYPOINT_SPACING, this.pathLength - 1)]);
+    }
+
+    /**
+     * True if the path found has since turned out to run through a tile we now know we can't enter, in the stretch
+     * ahead of the unit; the search should be restarted.
+     */
+    public boolean isStale() {
+        if (this.pathLength == 0) return false;
+
+        int end = Math.min(this.pathLength - 1, this.cursor + Config.PATH_WAYPOINT_SPACING);
+        for (int i = this.cursor; i < end; i++) {
+            int x = this.path[i + 1] % width, y = this.path[i + 1] / width;
+            if (!this.passable(this.path[i] % width, this.path[i] / width, x, y)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * True if we expect a ground unit to be able to step between the given adjacent tiles. Tiles we haven't seen are
+     * assumed passable; remembered tiles must be dry, free of buildings, and within the dirt difference.
+     */
+    private boolean passable(int x, int y, int nx, int ny) {
+        if (!this.memory.isKnown(nx, ny)) return true;
+        if (this.memory.isFlooded(nx, ny) || this.memory.hasBuilding(nx, ny)) return false;
+        if (!this.memory.isKnown(x, y)) return true;
+
+        return Math.abs(this.memory.elevation(nx, ny) - this.memory.elevation(x, y)) <= GameConstants.MAX_DIRT_DIFFERENCE;
+    }
+
+    /**
+     * True if the given tile is remembered dry but low enough to be under water by the time we expect to arrive. We
+     * don't know how the water will spread, so every such tile is treated as at risk.
+     */
+    private boolean floodRisk(int x, int y) {
+        return this.memory.isKnown(x, y) && FloodForecast.below(this.memory.elevation(x, y), this.floodLevel);
+    }
+
+    /** Moves to the goal ignoring terrain; every move, diagonals included, costs one turn. */
+    private int heuristic(int x, int y) {
+        return Math.max(Math.abs(x - this.goal % width), Math.abs(y - this.goal / width));
+    }
+
+    private MapLocation location(int node) {
+        return new MapLocation(node % width, node / width);
+    }
+
+    /** Follow parents back from the goal to fill in the path from the start. */
+    private void tracePath() {
+        int length = 1;
+        for (int node = this.goal; node != this.start; node = this.parents[node]) length++;
+
+        int node = this.goal;
+        for (int i = length - 1; i >= 0; i--) {
+            this.path[i] = node;
+            node = this.parents[node];
+        }
+
+        this.pathLength = length;
+        this.cursor = 0;
+    }
+
+    private void push(int f, int h, int node) {
+        if (this.heapSize == this.heap.length) return;
+
+        int entry = (Math.min(f, F_MAX) << F_SHIFT) | (h << H_SHIFT) | node;
+        int i = this.heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (this.heap[parent] <= entry) break;
+            this.heap[i] = this.heap[parent];
+            i = parent;
+        }
+
+        this.heap[i] = entry;
+    }
+
+    private int pop() {
+        int top = this.heap[0];
+        int last = this.heap[--this.heapSize];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.heapSize) break;
+            if (child + 1 < this.heapSize && this.heap[child + 1] < this.heap[child]) child++;
+            if (this.heap[child] >= last) break;
+            this.heap[i] = this.heap[child];
+            i = child;
+        }
+
+        this.heap[i] = last;
+        return top;
+    }
+}
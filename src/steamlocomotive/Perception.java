@@ -0,0 +1,201 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Everything a unit senses about the robots and soup around it on one turn, gathered with one senseNearbyRobots and one
+ * senseNearbySoup call at the start of the turn. Robots are binned by team (and enemy robots which can shoot drones down
+ * kept apart), indexed by location, and swept once for the nearest robot of every team and type, so every state handler
+ * can read them from here instead of sensing again. Only valid until the unit moves.
+ */
+public class Perception {
+    // Team slots for the type tables: ours, the enemy's, and neutral (cows).
+    private static final int OURS = 0, THEIRS = 1, NEUTRAL = 2;
+    private static final int TYPES = RobotType.values().length;
+    private static final MapLocation[] NO_SOUP = new MapLocation[0];
+
+    // Every robot sensed, and those on each side; the enemy net guns and HQs among them.
+    private RobotInfo[] robots, allies, enemies, neutrals, enemyShooters;
+    // Every tile with soup on it, and the soup on each (the array may be longer than the tiles).
+    private MapLocation[] soup;
+    private int[] soupAmounts;
+    // Where the unit was when this was sensed, and its team.
+    private MapLocation origin;
+    private Team us;
+
+    // For each tile (x + y * width), the index into robots of the robot on it, valid only if its stamp is this turn's.
+    private final int[] stamps, slots;
+    private final int width, height;
+    private int stamp;
+
+    // For each team slot and type (slot * TYPES + type ordinal): the nearest robot and its squared distance.
+    private final RobotInfo[] nearest;
+    private final int[] distances;
+
+    public Perception(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stamps = new int[width * height];
+        this.slots = new int[width * height];
+        this.stamp = 0;
+        this.nearest = new RobotInfo[3 * TYPES];
+        this.distances = new int[3 * TYPES];
+        this.soupAmounts = new int[0];
+    }
+
+    /** Sense the robots and soup around the given unit, replacing whatever was sensed before. */
+    public void sense(RobotController rc) throws GameActionException {
+        this.index(rc.getLocation(), rc.getTeam(), rc.senseNearbyRobots());
+        this.soup = rc.senseNearbySoup();
+        if (this.soupAmounts.length < this.soup.length) this.soupAmounts = new int[this.soup.length];
+        for (int i = 0; i < this.soup.length; i++) this.soupAmounts[i] = rc.senseSoup(this.soup[i]);
+    }
+
+    /** Sense only the robots around the given unit, for buildings which have no use for soup. */
+    public void senseRobots(RobotController rc) {
+        this.index(rc.getLocation(), rc.getTeam(), rc.senseNearbyRobots());
+        this.soup = NO_SOUP;
+    }
+
+    /** Index the given robots, as seen from the given location by a unit on the given team. */
+    public void index(MapLocation origin, Team us, RobotInfo[] robots) {
+        this.origin = origin;
+        this.us = us;
+        this.robots = robots;
+        this.stamp++;
+
+        for (int i = 0; i < 3 * TYPES; i++) {
+            this.nearest[i] = null;
+            this.distances[i] = Integer.MAX_VALUE;
+        }
+
+        int allyCount = 0, enemyCount = 0, shooterCount = 0;
+        for (int i = 0; i < this.robots.length; i++) {
+            RobotInfo robot = this.robots[i];
+            if (robot.team == us) allyCount++;
+            else if (robot.team != Team.NEUTRAL) {
+                enemyCount++;
+                if (robot.type == RobotType.NET_GUN || robot.type == RobotType.HQ) shooterCount++;
+            }
+
+            int tile = robot.location.x + robot.location.y * width;
+            this.stamps[tile] = this.stamp;
+            this.slots[tile] = i;
+
+            int key = this.slot(robot.team) * TYPES + robot.type.ordinal();
+            int dist = origin.distanceSquaredTo(robot.location);
+            if (dist < this.distances[key]) {
+                this.distances[key] = dist;
+                this.nearest[key] = robot;
+            }
+        }
+
+        this.allies = new RobotInfo[allyCount];
+        this.enemies = new RobotInfo[enemyCount];
+        this.neutrals = new RobotInfo[this.robots.length - allyCount - enemyCount];
+        this.enemyShooters = new RobotInfo[shooterCount];
+        int a = 0, e = 0, n = 0, s = 0;
+        for (RobotInfo robot : this.robots) {
+            if (robot.team == us) this.allies[a++] = robot;
+            else if (robot.team == Team.NEUTRAL) this.neutrals[n++] = robot;
+            else {
+                this.enemies[e++] = robot;
+                if (robot.type == RobotType.NET_GUN || robot.type == RobotType.HQ) this.enemyShooters[s++] = robot;
+            }
+        }
+    }
+
+    /** Every robot we sensed. */
+    public RobotInfo[] robots() {
+        return this.robots;
+    }
+
+    /** The robots we sensed on the given team. */
+    public RobotInfo[] team(Team team) {
+        if (team == this.us) return this.allies;
+        if (team == Team.NEUTRAL) return this.neutrals;
+        return this.enemies;
+    }
+
+    public RobotInfo[] enemies() {
+        return this.enemies;
+    }
+
+    /** The enemy net guns and HQs we sensed, which can shoot down drones. */
+    public RobotInfo[] enemyShooters() {
+        return this.enemyShooters;
+    }
+
+    /** Every sensed tile with soup on it. */
+    public MapLocation[] soup() {
+        return this.soup;
+    }
+
+    /** The soup on each tile of soup(), by the same index; the array may be longer than soup(). */
+    public int[] soupAmounts() {
+        return this.soupAmounts;
+    }
+
+    /** The robot we sensed on the given tile, or null if there was none (or we couldn't sense it). */
+    public RobotInfo robotAt(MapLocation loc) {
+        if (loc.x < 0 || loc.y < 0 || loc.x >= width || loc.y >= height) return null;
+
+        int tile = loc.x + loc.y * width;
+        if (this.stamps[tile] != this.stamp) return null;
+        return this.robots[this.slots[tile]];
+    }
+
+    /** True if any sensed soup is on a tile adjacent to the given one. */
+    public boolean soupAdjacentTo(MapLocation loc) {
+        for (MapLocation tile : this.soup) {
+            if (tile.isAdjacentTo(loc)) return true;
+        }
+
+        return false;
+    }
+
+    /** The nearest robot of the given type on the given team, or null if we don't see one. */
+    public RobotInfo nearest(RobotType type, Team team) {
+        return this.nearest[this.slot(team) * TYPES + type.ordinal()];
+    }
+
+    /** The squared distance to the nearest robot of the given type on the given team, or MAX_VALUE if there is none. */
+    public int distance(RobotType type, Team team) {
+        return this.distances[this.slot(team) * TYPES + type.ordinal()];
+    }
+
+    /** How many robots of the given type on the given team are within the given squared distance of us. */
+    public int countWithin(RobotType type, Team team, int radiusSquared) {
+        if (this.distance(type, team) > radiusSquared) return 0;
+
+        int count = 0;
+        for (RobotInfo robot : this.team(team)) {
+            if (robot.type == type && this.origin.distanceSquaredTo(robot.location) <= radiusSquared) count++;
+        }
+
+        return count;
+    }
+
+    /** Find the closest sensed robot on the given team which obeys the given predicate. */
+    public Utils.ClosestRobot closest(RobotController rc, Utils.GamePredicate<RobotInfo> pred, Team team) throws GameActionException {
+        RobotInfo best = null;
+        int bestDistance = Integer.MAX_VALUE;
+
+        for (RobotInfo robot : this.team(team)) {
+            if (!pred.check(robot)) continue;
+
+            int dist = this.origin.distanceSquaredTo(robot.location);
+            if (dist < bestDistance) {
+                bestDistance = dist;
+                best = robot;
+            }
+        }
+
+        return new Utils.ClosestRobot(best, bestDistance);
+    }
+
+    private int slot(Team team) {
+        if (team == this.us) return OURS;
+        return team == Team.NEUTRAL ? NEUTRAL : THEIRS;
+    }
+}
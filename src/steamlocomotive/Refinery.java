@@ -4,12 +4,29 @@ import battlecode.common.*;
 
 public class Refinery extends Unit {
 
+    // Comms object
+    private Bitconnect comms;
+
+    // The round that we broadcasted the last heartbeat.
+    private int lastHeartbeatRound = 0;
+
     public Refinery(int id) {
         super(id);
     }
 
     @Override
-    public void run(RobotController rc, int turn) {
+    public void run(RobotController rc, int turn) throws GameActionException {
+        // Send out a heartbeat of our existence.
+        if (rc.getRoundNum() - lastHeartbeatRound >= Bitconnect.HEARTBEAT_CADENCE) {
+            comms.notifyHeartbeat(rc.getID(), rc.getLocation(), rc.getType(), rc.getRoundNum());
+            lastHeartbeatRound = rc.getRoundNum();
+        }
 
+        comms.updateForTurn(rc);
+    }
+
+    @Override
+    public void onCreation(RobotController rc) throws GameActionException {
+        comms = Bitconnect.initialize(rc);
     }
 }
\ No newline at end of file
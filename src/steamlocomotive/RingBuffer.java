@@ -0,0 +1,143 @@
+package steamlocomotive;
+
+/**
+ * A fixed-capacity FIFO queue backed by a circular array; adding and polling are both O(1) and never allocate.
+ */
+public class RingBuffer<T> {
+
+    private final T[] content;
+    private int head;
+    private int size;
+
+    /**
+     * Create a ring buffer which can hold at most the given number of elements.
+     */
+    public RingBuffer(int capacity) {
+        content = (T[]) new Object[capacity];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Return the number of elements in the buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the maximum number of elements the buffer can hold.
+     */
+    public int capacity() {
+        return content.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == content.length;
+    }
+
+    /**
+     * Add an element to the back of the buffer; returns false (and drops the element) if the buffer is full.
+     */
+    public boolean add(T obj) {
+        if (size == content.length) return false;
+
+        int tail = head + size;
+        if (tail >= content.length) tail -= content.length;
+        content[tail] = obj;
+        size++;
+        return true;
+    }
+
+    /**
+     * Add an element to the front of the buffer; returns false (and drops the element) if the buffer is full.
+     */
+    public boolean addFirst(T obj) {
+        if (size == content.length) return false;
+
+        head--;
+        if (head < 0) head = content.length - 1;
+        content[head] = obj;
+        size++;
+        return true;
+    }
+
+    /**
+     * Return the element at the front of the buffer without removing it, or null if empty.
+     */
+    public T peek() {
+        return size == 0 ? null : content[head];
+    }
+
+    /**
+     * Remove and return the element at the front of the buffer, or null if empty.
+     */
+    public T poll() {
+        if (size == 0) return null;
+
+        T value = content[head];
+        content[head] = null;
+        head++;
+        if (head == content.length) head = 0;
+        size--;
+        return value;
+    }
+
+    /**
+     * Get the element at the given position, counting from the front of the buffer.
+     */
+    public T get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds (size = " + size + ")");
+
+        int pos = head + index;
+        if (pos >= content.length) pos -= content.length;
+        return content[pos];
+    }
+
+    /**
+     * Replace the element at the given position, counting from the front of the buffer; returns the old element.
+     */
+    public T set(int index, T obj) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds (size = " + size + ")");
+
+        int pos = head + index;
+        if (pos >= content.length) pos -= content.length;
+        T value = content[pos];
+        content[pos] = obj;
+        return value;
+    }
+
+    /**
+     * Remove and return the element at the given position, keeping the order of the remaining elements. This shifts
+     * every element behind it, so it is O(n).
+     */
+    public T removeAt(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds (size = " + size + ")");
+
+        int pos = head + index;
+        if (pos >= content.length) pos -= content.length;
+        T value = content[pos];
+
+        for (int i = index + 1; i < size; i++) {
+            int next = pos + 1;
+            if (next == content.length) next = 0;
+            content[pos] = content[next];
+            pos = next;
+        }
+
+        content[pos] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Remove all elements from the buffer.
+     */
+    public void clear() {
+        while (size > 0) poll();
+    }
+}
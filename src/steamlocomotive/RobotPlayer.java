@@ -35,6 +35,7 @@ public strictfp class RobotPlayer {
         }
 
         // Initial on creation call for agent setup.
+        unit.bind(rc);
         try {
             unit.onCreation(rc);
         } catch (Exception ex) {
@@ -56,6 +57,13 @@ public strictfp class RobotPlayer {
                 if (bround != around)  {
                     // Check for timeouts so we can warn appropriately.
                     System.out.printf("Robot %s timed out (round %d -> %d, %d bytecodes)%n", rc.getType(), bround, around, abytes - bbytes);
+                } else {
+                    // Spend whatever is left of the turn on background work.
+                    unit.afterTurn(rc);
+                }
+
+                if (turn % Config.BUG_STATS_INTERVAL == 0 && BugPathfinder.stepsSaved() > 0) {
+                    Utils.print(rc.getType() + " saved " + BugPathfinder.stepsSaved() + " steps picking the way round obstacles");
                 }
 
                 // TODO: Consider adding a 'low utilization' warning.
@@ -0,0 +1,143 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Memoizes sensing within a turn: the elevation, flooding, soup and robot of each tile (keyed by x + y * width) are
+ * sensed at most once per turn, and read back from an array after that. Nothing else changes the map during our turn,
+ * so the only invalidation needed is for our own actions; dig, deposit and move through the cache so it can forget the
+ * tiles they change. Each entry carries the stamp it was sensed under, and a new turn just starts a new stamp.
+ */
+public class SenseCache {
+    // The unit's cache, allocated the first time it senses through one.
+    private static SenseCache cache;
+
+    // Map width and height.
+    private final int width, height;
+
+    // Cached values of each tile, valid only when the matching stamp is the current one.
+    private final int[] elevationStamps, elevations;
+    private final int[] floodStamps;
+    private final boolean[] floods;
+    private final int[] soupStamps, soups;
+    private final int[] robotStamps;
+    private final RobotInfo[] robots;
+
+    // The current stamp, and the round it was started on.
+    private int stamp, round;
+
+    private SenseCache(int width, int height) {
+        int tiles = width * height;
+
+        this.width = width;
+        this.height = height;
+        this.elevationStamps = new int[tiles];
+        this.elevations = new int[tiles];
+        this.floodStamps = new int[tiles];
+        this.floods = new boolean[tiles];
+        this.soupStamps = new int[tiles];
+        this.soups = new int[tiles];
+        this.robotStamps = new int[tiles];
+        this.robots = new RobotInfo[tiles];
+        this.stamp = 0;
+        this.round = -1;
+    }
+
+    /** The given unit's cache, emptied if this is the first use this turn. */
+    public static SenseCache of(RobotController rc) {
+        if (cache == null) cache = new SenseCache(rc.getMapWidth(), rc.getMapHeight());
+        if (cache.round != rc.getRoundNum()) {
+            cache.round = rc.getRoundNum();
+            cache.stamp++;
+        }
+
+        return cache;
+    }
+
+    public int elevation(RobotController rc, MapLocation loc) throws GameActionException {
+        int tile = this.tile(loc);
+        if (tile < 0) return rc.senseElevation(loc);
+        if (this.elevationStamps[tile] != this.stamp) {
+            this.elevations[tile] = rc.senseElevation(loc);
+            this.elevationStamps[tile] = this.stamp;
+        }
+
+        return this.elevations[tile];
+    }
+
+    public boolean flooded(RobotController rc, MapLocation loc) throws GameActionException {
+        int tile = this.tile(loc);
+        if (tile < 0) return rc.senseFlooding(loc);
+        if (this.floodStamps[tile] != this.stamp) {
+            this.floods[tile] = rc.senseFlooding(loc);
+            this.floodStamps[tile] = this.stamp;
+        }
+
+        return this.floods[tile];
+    }
+
+    public int soup(RobotController rc, MapLocation loc) throws GameActionException {
+        int tile = this.tile(loc);
+        if (tile < 0) return rc.senseSoup(loc);
+        if (this.soupStamps[tile] != this.stamp) {
+            this.soups[tile] = rc.senseSoup(loc);
+            this.soupStamps[tile] = this.stamp;
+        }
+
+        return this.soups[tile];
+    }
+
+    /** The robot on the given tile, or null if there is none. */
+    public RobotInfo robotAt(RobotController rc, MapLocation loc) throws GameActionException {
+        int tile = this.tile(loc);
+        if (tile < 0) return rc.senseRobotAtLocation(loc);
+        if (this.robotStamps[tile] != this.stamp) {
+            this.robots[tile] = rc.senseRobotAtLocation(loc);
+            this.robotStamps[tile] = this.stamp;
+        }
+
+        return this.robots[tile];
+    }
+
+    public boolean isOccupied(RobotController rc, MapLocation loc) throws GameActionException {
+        return this.robotAt(rc, loc) != null;
+    }
+
+    /** Dig dirt from the given direction, forgetting the tile's elevation and flooding, and the robot on it. */
+    public void digDirt(RobotController rc, Direction dir) throws GameActionException {
+        rc.digDirt(dir);
+        this.forget(rc.getLocation().add(dir));
+    }
+
+    /** Deposit dirt in the given direction, forgetting the tile's elevation and flooding, and the robot on it. */
+    public void depositDirt(RobotController rc, Direction dir) throws GameActionException {
+        rc.depositDirt(dir);
+        this.forget(rc.getLocation().add(dir));
+    }
+
+    /** Move in the given direction, forgetting who is on the tiles we left and entered. */
+    public void move(RobotController rc, Direction dir) throws GameActionException {
+        MapLocation from = rc.getLocation();
+        rc.move(dir);
+
+        int tile = this.tile(from);
+        if (tile >= 0) this.robotStamps[tile] = 0;
+        tile = this.tile(from.add(dir));
+        if (tile >= 0) this.robotStamps[tile] = 0;
+    }
+
+    private void forget(MapLocation loc) {
+        int tile = this.tile(loc);
+        if (tile < 0) return;
+
+        this.elevationStamps[tile] = 0;
+        this.floodStamps[tile] = 0;
+        this.robotStamps[tile] = 0;
+    }
+
+    /** The index of the given location, or -1 if it's off the map (so sensing it throws as usual). */
+    private int tile(MapLocation loc) {
+        if (loc.x < 0 || loc.y < 0 || loc.x >= width || loc.y >= height) return -1;
+        return loc.x + loc.y * width;
+    }
+}
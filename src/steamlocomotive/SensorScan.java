@@ -0,0 +1,165 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Iterates over the tiles a unit can sense, nearest first, without allocating or asking the controller about each one.
+ * The offsets within a robot type's sensor radius are tabulated the first time that type scans, sorted by distance;
+ * each scan then clips them against the map edges and the unit's current (possibly polluted) sensor radius up front.
+ *
+ * A unit which has just moved a tile has seen most of what it can sense already; it can scan just the leading edge of
+ * its sensor range in the direction it moved, which is tabulated the same way.
+ *
+ * Usage:
+ * <pre>
+ *     SensorScan scan = SensorScan.begin(rc);
+ *     while (scan.next()) { ... scan.x(), scan.y(), scan.distanceSquared(), scan.location() ... }
+ * </pre>
+ */
+public class SensorScan {
+    // One table per robot type, built on its first scan.
+    private static final SensorScan[] scans = new SensorScan[RobotType.values().length];
+
+    // Offsets within the type's full sensor radius, nearest first, and the squared distance of each.
+    private final int[] dxs, dys, distances;
+    // The number of offsets within each squared distance, from 0 up to the full sensor radius.
+    private final int[] within;
+    // For each direction moved (by ordinal), the indices of the offsets which were out of range before the move.
+    private final int[][] edges;
+
+    // The current scan: the unit's location, the offsets which land on the map, the indices of the offsets to visit
+    // (or null for all of them), how many of those are in range, the position in them, and the current offset.
+    private int originX, originY;
+    private int minDx, maxDx, minDy, maxDy;
+    private int[] indices;
+    private int limit, position, cursor;
+
+    private SensorScan(int radiusSquared) {
+        int radius = (int) Math.sqrt(radiusSquared);
+        this.edges = new int[Direction.values().length][];
+
+        // Counting sort by squared distance, so the table costs the same however many offsets tie.
+        this.within = new int[radiusSquared + 1];
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                int distance = dx * dx + dy * dy;
+                if (distance <= radiusSquared) this.within[distance]++;
+            }
+        }
+        for (int d = 1; d <= radiusSquared; d++) this.within[d] += this.within[d - 1];
+
+        int count = this.within[radiusSquared];
+        this.dxs = new int[count];
+        this.dys = new int[count];
+        this.distances = new int[count];
+
+        int[] next = new int[radiusSquared + 1];
+        for (int d = 1; d <= radiusSquared; d++) next[d] = this.within[d - 1];
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                int distance = dx * dx + dy * dy;
+                if (distance > radiusSquared) continue;
+
+                int i = next[distance]++;
+                this.dxs[i] = dx;
+                this.dys[i] = dy;
+                this.distances[i] = distance;
+            }
+        }
+    }
+
+    /** Start a scan of everything the given unit can sense this turn. */
+    public static SensorScan begin(RobotController rc) {
+        RobotType type = rc.getType();
+        SensorScan scan = scans[type.ordinal()];
+        if (scan == null) scan = scans[type.ordinal()] = new SensorScan(type.sensorRadiusSquared);
+
+        scan.reset(rc, null);
+        return scan;
+    }
+
+    /**
+     * Start a scan of only the tiles the given unit can sense now but couldn't from the given location last turn, or
+     * of everything if it has come further than a tile or its sensor range isn't what it was (we assume the full range).
+     */
+    public static SensorScan beginSince(RobotController rc, MapLocation last) {
+        SensorScan scan = SensorScan.begin(rc);
+        MapLocation loc = rc.getLocation();
+        if (last == null || !(last.equals(loc) || last.isAdjacentTo(loc))) return scan;
+        if (rc.getCurrentSensorRadiusSquared() != rc.getType().sensorRadiusSquared) return scan;
+
+        scan.reset(rc, scan.edge(last.directionTo(loc)));
+        return scan;
+    }
+
+    /** True if this scan covers every sensable tile, rather than just the leading edge of a move. */
+    public boolean isFull() {
+        return this.indices == null;
+    }
+
+    /** Advance to the next sensable tile; returns false once every tile has been visited. */
+    public boolean next() {
+        while (++this.position < this.limit) {
+            this.cursor = this.indices == null ? this.position : this.indices[this.position];
+            int dx = this.dxs[this.cursor], dy = this.dys[this.cursor];
+            if (dx >= this.minDx && dx <= this.maxDx && dy >= this.minDy && dy <= this.maxDy) return true;
+        }
+
+        return false;
+    }
+
+    /** The x coordinate of the current tile. */
+    public int x() {
+        return this.originX + this.dxs[this.cursor];
+    }
+
+    /** The y coordinate of the current tile. */
+    public int y() {
+        return this.originY + this.dys[this.cursor];
+    }
+
+    /** The squared distance from the unit to the current tile. */
+    public int distanceSquared() {
+        return this.distances[this.cursor];
+    }
+
+    /** The current tile; allocates, so prefer x() and y() where they'll do. */
+    public MapLocation location() {
+        return new MapLocation(this.x(), this.y());
+    }
+
+    /** The indices of the offsets in range after moving in the given direction which weren't before, nearest first. */
+    private int[] edge(Direction moved) {
+        int[] edge = this.edges[moved.ordinal()];
+        if (edge != null) return edge;
+
+        int radiusSquared = this.within.length - 1;
+        int mx = moved.getDeltaX(), my = moved.getDeltaY();
+        int count = 0;
+        int[] found = new int[this.dxs.length];
+        for (int i = 0; i < this.dxs.length; i++) {
+            // Where the tile was relative to us before the move.
+            int px = this.dxs[i] + mx, py = this.dys[i] + my;
+            if (px * px + py * py > radiusSquared) found[count++] = i;
+        }
+
+        edge = new int[count];
+        System.arraycopy(found, 0, edge, 0, count);
+        return this.edges[moved.ordinal()] = edge;
+    }
+
+    private void reset(RobotController rc, int[] indices) {
+        MapLocation loc = rc.getLocation();
+        this.originX = loc.x;
+        this.originY = loc.y;
+        this.minDx = -loc.x;
+        this.maxDx = rc.getMapWidth() - 1 - loc.x;
+        this.minDy = -loc.y;
+        this.maxDy = rc.getMapHeight() - 1 - loc.y;
+
+        int radiusSquared = Math.min(rc.getCurrentSensorRadiusSquared(), this.within.length - 1);
+        this.indices = indices;
+        this.limit = indices != null ? indices.length : radiusSquared < 0 ? 0 : this.within[radiusSquared];
+        this.position = -1;
+    }
+}
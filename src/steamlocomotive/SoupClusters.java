@@ -0,0 +1,203 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * A miner's memory of the soup fields it has seen: up to k clusters of soup tiles, each with a representative tile to
+ * head for, the soup it held when last seen, and when that was. Clusters we can see are re-totalled from scratch every
+ * scan, so mined-out fields disappear as soon as we look at them; clusters we can't see are assumed to keep being mined
+ * down at the rate we saw them going down while we could. When there are more fields than slots, the least valuable
+ * field is the one forgotten.
+ *
+ * Usage, once per turn: beginScan, then observe every soup tile sensed, then endScan.
+ */
+public class SoupClusters {
+    // Clusters live in slots 0 to count - 1; slot count is where a new field seen this scan is collected, to be kept
+    // at the end of the scan if it beats the least valuable existing cluster.
+    private final int count, radius;
+
+    // Per slot: the representative tile (null if the slot is empty), its squared distance from us during this scan,
+    // the soup in the cluster when last seen, the round it was last seen, and the soup per round it's being mined at.
+    private final MapLocation[] reps;
+    private final int[] repDistances, soups, seen, rates;
+
+    // Per slot, during a scan: whether the representative is in sensor range (so the cluster is re-totalled), and the
+    // soup observed in the cluster so far.
+    private final boolean[] visible;
+    private final int[] totals;
+
+    // Where we are scanning from and the round, and the slot best() last chose (or -1).
+    private MapLocation origin;
+    private int round;
+    private int chosen;
+
+    public SoupClusters(int count, int radius) {
+        this.count = count;
+        this.radius = radius;
+        this.reps = new MapLocation[count + 1];
+        this.repDistances = new int[count + 1];
+        this.soups = new int[count + 1];
+        this.seen = new int[count + 1];
+        this.rates = new int[count + 1];
+        this.visible = new boolean[count + 1];
+        this.totals = new int[count + 1];
+        this.chosen = -1;
+    }
+
+    /** Start a scan from the given location in the given round, where we can sense within the given squared radius. */
+    public void beginScan(MapLocation origin, int round, int sensorRadiusSquared) {
+        this.origin = origin;
+        this.round = round;
+
+        for (int i = 0; i < this.count; i++) {
+            this.totals[i] = 0;
+            if (this.reps[i] == null) continue;
+
+            this.repDistances[i] = origin.distanceSquaredTo(this.reps[i]);
+            this.visible[i] = this.repDistances[i] <= sensorRadiusSquared;
+            // A visible cluster gets a fresh representative from the tiles we see now; one we haven't seen for long
+            // enough that it should be mined out is forgotten.
+            if (this.visible[i]) this.repDistances[i] = Integer.MAX_VALUE;
+            else if (this.remaining(i, round) == 0) this.forget(i);
+        }
+
+        this.reps[this.count] = null;
+        this.totals[this.count] = 0;
+    }
+
+    /** Record a soup tile (which a miner can get next to) holding the given amount of soup. */
+    public void observe(MapLocation loc, int soup) {
+        int dist = this.origin.distanceSquaredTo(loc);
+        for (int i = 0; i <= this.count; i++) {
+            if (this.reps[i] == null || this.reps[i].distanceSquaredTo(loc) >= this.radius) continue;
+
+            // The nearest tile of a field is the one to head for.
+            this.totals[i] += soup;
+            if (dist < this.repDistances[i]) {
+                this.reps[i] = loc;
+                this.repDistances[i] = dist;
+            }
+            return;
+        }
+
+        // Not part of any field we know; fill an empty slot, or start the candidate if there isn't one yet.
+        for (int i = 0; i <= this.count; i++) {
+            if (this.reps[i] != null) continue;
+
+            this.reps[i] = loc;
+            this.repDistances[i] = dist;
+            this.totals[i] = soup;
+            this.soups[i] = 0;
+            this.seen[i] = this.round;
+            this.rates[i] = 0;
+            this.visible[i] = true;
+            return;
+        }
+    }
+
+    /**
+     * Finish the scan: visible clusters take the soup just counted (and are forgotten if they had none), and update
+     * their mining rate from how much it went down since we last saw them; others keep their estimate. The candidate
+     * replaces the least valuable cluster if it is worth more.
+     */
+    public void endScan() {
+        for (int i = 0; i < this.count; i++) {
+            if (this.reps[i] == null) continue;
+
+            if (this.visible[i]) {
+                // Averaged with the old rate, so a turn nobody happened to mine doesn't make the field look untouched.
+                if (this.round > this.seen[i]) {
+                    int mined = Math.max(0, this.soups[i] - this.totals[i]) / (this.round - this.seen[i]);
+                    this.rates[i] = (this.rates[i] + mined) / 2;
+                }
+                this.soups[i] = this.totals[i];
+                this.seen[i] = this.round;
+                if (this.totals[i] == 0) this.forget(i);
+            } else if (this.totals[i] > this.soups[i]) {
+                // We only see part of the field, but it's already more than we thought was there.
+                this.soups[i] = this.totals[i];
+                this.seen[i] = this.round;
+            }
+        }
+
+        if (this.reps[this.count] == null) return;
+
+        int worst = -1;
+        for (int i = 0; i < this.count; i++) {
+            if (worst == -1 || this.better(worst, i)) worst = i;
+        }
+
+        this.soups[this.count] = this.totals[this.count];
+        this.seen[this.count] = this.round;
+        if (this.better(this.count, worst)) {
+            this.reps[worst] = this.reps[this.count];
+            this.soups[worst] = this.soups[this.count];
+            this.seen[worst] = this.round;
+            this.rates[worst] = 0;
+            if (this.chosen == worst) this.chosen = -1;
+        }
+        this.reps[this.count] = null;
+    }
+
+    /** The soup we expect is left in the given cluster now, allowing for mining since we last saw it. */
+    public int remaining(int slot, int round) {
+        return Math.max(0, this.soups[slot] - (round - this.seen[slot]) * this.rates[slot]);
+    }
+
+    /**
+     * The representative of the cluster most worth heading for from the given location: the most soup we expect to
+     * find per move of travel. The cluster chosen last time gets a bonus, so we don't churn between similar fields.
+     * Returns null if we know of no soup.
+     */
+    public MapLocation best(MapLocation from, int round) {
+        int best = -1;
+        long bestScore = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.reps[i] == null) continue;
+
+            long score = this.score(i, from, round);
+            if (i == this.chosen) score = score * (100 + Config.SOUP_CLUSTER_STICKINESS) / 100;
+            if (best == -1 || score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+
+        this.chosen = best;
+        return best == -1 ? null : this.reps[best];
+    }
+
+    /** Return true if this clusterer is tracking any clusters. */
+    public boolean hasCluster() {
+        for (int i = 0; i < this.count; i++) {
+            if (this.reps[i] != null) return true;
+        }
+
+        return false;
+    }
+
+    /** Forget every cluster. */
+    public void clear() {
+        for (int i = 0; i <= this.count; i++) this.reps[i] = null;
+        this.chosen = -1;
+    }
+
+    /** Soup per move of travel, scaled up so integer division keeps some precision. */
+    private long score(int slot, MapLocation from, int round) {
+        MapLocation rep = this.reps[slot];
+        int moves = Math.max(Math.abs(rep.x - from.x), Math.abs(rep.y - from.y));
+        return 1024L * this.remaining(slot, round) / (moves + Config.SOUP_CLUSTER_TRAVEL_OVERHEAD);
+    }
+
+    /** True if the first slot is worth more than the second from where we're scanning; empty slots are worth nothing. */
+    private boolean better(int a, int b) {
+        if (this.reps[b] == null) return this.reps[a] != null;
+        if (this.reps[a] == null) return false;
+        return this.score(a, this.origin, this.round) > this.score(b, this.origin, this.round);
+    }
+
+    private void forget(int slot) {
+        this.reps[slot] = null;
+        if (this.chosen == slot) this.chosen = -1;
+    }
+}
@@ -0,0 +1,183 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Team-wide knowledge of where soup is, at the granularity of coarse regions: the map is split into an 8x8 grid of
+ * REGION_SIZE x REGION_SIZE tile regions, and each region gets a 2-bit soup density level. Levels sensed locally which
+ * differ from what the team knows are marked dirty until they show up on the chain.
+ *
+ * A unit usually only sees part of a region, so the soup it sees is a lower bound: levels go up as soon as we see
+ * enough soup, but only come down when the region's center is in view and the soup seen is well under the level (see
+ * localLevel). Otherwise every unit walking past a field would keep changing its level and rebroadcasting it.
+ */
+public class SoupMap {
+    /** The side length (in tiles) of a region, and the number of regions along each side of the grid. */
+    public static final int REGION_SIZE = 8, REGIONS_PER_SIDE = 8;
+
+    /** The number of regions, and the bits needed to write a region index. */
+    public static final int NUM_REGIONS = REGIONS_PER_SIDE * REGIONS_PER_SIDE, REGION_BITS = 6;
+
+    /** Density levels are 0 (no soup known) through MAX_LEVEL, written in LEVEL_BITS bits. */
+    public static final int MAX_LEVEL = 3, LEVEL_BITS = 2;
+
+    // Map width and height.
+    private final int width, height;
+
+    // The density level of each region, and the round of the observation it came from.
+    private final int[] levels, rounds;
+
+    // Bitmask of regions whose local level hasn't been seen on the chain yet.
+    private long dirty;
+
+    // Scratch space for summing soup per region while observing, and the regions touched.
+    private final int[] totals;
+    private final int[] touched;
+
+    public SoupMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.levels = new int[NUM_REGIONS];
+        this.rounds = new int[NUM_REGIONS];
+        this.dirty = 0;
+        this.totals = new int[NUM_REGIONS];
+        this.touched = new int[NUM_REGIONS];
+    }
+
+    /** The region containing the given tile. */
+    public static int regionOf(int x, int y) {
+        return (x / REGION_SIZE) + (y / REGION_SIZE) * REGIONS_PER_SIDE;
+    }
+
+    /** The density level for a region holding the given total amount of soup. */
+    public static int levelFor(int soup) {
+        if (soup <= 0) return 0;
+        if (soup < Config.SOUP_FIELD_MEDIUM) return 1;
+        if (soup < Config.SOUP_FIELD_RICH) return 2;
+        return MAX_LEVEL;
+    }
+
+    /**
+     * The level to hold for a region at the given level after seeing the given amount of soup in it. More soup than the
+     * level allows raises it straight away; less only lowers it if the region's center was in view, and then only as
+     * far as the soup would still be under with SOUP_FIELD_HYSTERESIS percent more of it.
+     */
+    public static int localLevel(int current, int soup, boolean centerInView) {
+        int level = SoupMap.levelFor(soup);
+        if (level >= current) return level;
+        if (!centerInView) return current;
+
+        return Math.min(current, SoupMap.levelFor(soup + soup * Config.SOUP_FIELD_HYSTERESIS / 100));
+    }
+
+    /** The center of the given region, clamped to the map. */
+    public MapLocation center(int region) {
+        int x = (region % REGIONS_PER_SIDE) * REGION_SIZE + REGION_SIZE / 2;
+        int y = (region / REGIONS_PER_SIDE) * REGION_SIZE + REGION_SIZE / 2;
+        return new MapLocation(Math.min(x, width - 1), Math.min(y, height - 1));
+    }
+
+    public int level(int region) {
+        return this.levels[region];
+    }
+
+    /**
+     * Sum the soup sensed on the given tiles (amounts[i] on soup[i]) per region and update the levels of those regions
+     * (see localLevel). Regions whose center we can sense but where we saw no soup are marked empty. Changed levels are
+     * marked dirty for broadcasting.
+     */
+    public void observe(RobotController rc, MapLocation[] soup, int[] amounts) {
+        int numTouched = 0;
+        for (int i = 0; i < soup.length; i++) {
+            int region = SoupMap.regionOf(soup[i].x, soup[i].y);
+            if (this.totals[region] == 0) this.touched[numTouched++] = region;
+            this.totals[region] += amounts[i];
+        }
+
+        int round = rc.getRoundNum();
+        for (int i = 0; i < numTouched; i++) {
+            int region = this.touched[i];
+            int level = SoupMap.levelFor(this.totals[region]);
+            if (level < this.levels[region])
+                level = SoupMap.localLevel(this.levels[region], this.totals[region], rc.canSenseLocation(this.center(region)));
+            this.setLocal(region, level, round);
+            this.totals[region] = 0;
+        }
+
+        // The region we're in is empty if its center is in view and we saw nothing in it.
+        int here = SoupMap.regionOf(rc.getLocation().x, rc.getLocation().y);
+        if (this.levels[here] != 0 && rc.canSenseLocation(this.center(here))) {
+            boolean seen = false;
+            for (int i = 0; i < numTouched && !seen; i++) seen = this.touched[i] == here;
+            if (!seen) this.setLocal(here, 0, round);
+        }
+    }
+
+    /**
+     * Apply a level read off the chain. A level which agrees with ours means the team already knows it; a different
+     * level only replaces ours if it's from a strictly newer observation, so our own observations from the same round
+     * are kept (and stay dirty until they're broadcast).
+     */
+    public void apply(int region, int level, int round) {
+        if (level == this.levels[region]) {
+            this.rounds[region] = Math.max(this.rounds[region], round);
+            this.dirty &= ~(1L << region);
+            return;
+        }
+        if (round <= this.rounds[region]) return;
+
+        this.levels[region] = level;
+        this.rounds[region] = round;
+        this.dirty &= ~(1L << region);
+    }
+
+    /** True if any region has a local level which hasn't been broadcast yet. */
+    public boolean hasDirty() {
+        return this.dirty != 0;
+    }
+
+    /** Write up to maxRegions of the dirty regions (index and level) into the given arrays; returns the count. */
+    public int dirtyRegions(int[] regions, int[] regionLevels, int maxRegions) {
+        int count = 0;
+        long remaining = this.dirty;
+        while (remaining != 0 && count < maxRegions) {
+            int region = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+
+            regions[count] = region;
+            regionLevels[count] = this.levels[region];
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * The center of the most attractive known soup region from the given location, weighing density against distance;
+     * null if no soup is known anywhere.
+     */
+    public MapLocation bestTarget(MapLocation from) {
+        int best = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int region = 0; region < NUM_REGIONS; region++) {
+            int level = this.levels[region];
+            if (level == 0) continue;
+
+            int cost = from.distanceSquaredTo(this.center(region)) / (level * level);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = region;
+            }
+        }
+
+        return best == -1 ? null : this.center(best);
+    }
+
+    private void setLocal(int region, int level, int round) {
+        this.rounds[region] = round;
+        if (this.levels[region] == level) return;
+
+        this.levels[region] = level;
+        this.dirty |= 1L << region;
+    }
+}
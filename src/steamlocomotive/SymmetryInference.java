@@ -0,0 +1,178 @@
+package steamlocomotive;
+
+import battlecode.common.*;
+
+/**
+ * Tracks which of the three map symmetries Battlecode maps are generated with are still possible, and therefore where
+ * the enemy HQ could be. Symmetries are ruled out either directly (nothing at the mirrored HQ location) or from
+ * evidence: tiles sensed early in the game are remembered, and a tile whose mirror under some symmetry was also sensed
+ * with a different elevation counts against that symmetry. Soup and flooding aren't compared, since mining and the
+ * spreading water change them. The caller passes in the elevation it already sensed, and at most
+ * SYMMETRY_CHECKS_PER_TURN tiles are checked a turn, so the evidence costs no extra sensing and little time.
+ */
+public class SymmetryInference {
+
+    /**
+     * The symmetries a map can have; the enemy HQ is our HQ mirrored by the map's symmetry.
+     */
+    public enum Symmetry {
+        // Mirrored across the horizontal center line (y flips).
+        HORIZONTAL,
+        // Mirrored across the vertical center line (x flips).
+        VERTICAL,
+        // Rotated 180 degrees about the center (both flip).
+        ROTATIONAL;
+
+        public int mirrorX(int x, int width) {
+            return this == HORIZONTAL ? x : width - 1 - x;
+        }
+
+        public int mirrorY(int y, int height) {
+            return this == VERTICAL ? y : height - 1 - y;
+        }
+
+        public MapLocation reflect(MapLocation loc, int width, int height) {
+            return new MapLocation(this.mirrorX(loc.x, width), this.mirrorY(loc.y, height));
+        }
+    }
+
+    // All symmetries, indexed by ordinal.
+    private static final Symmetry[] SYMMETRIES = Symmetry.values();
+
+    // Every symmetry possible; the starting state.
+    public static final int ALL_SYMMETRIES = (1 << SYMMETRIES.length) - 1;
+
+    // Flag set in a packed tile observation; elevation is stored in the low 16 bits.
+    private static final int OBSERVED = 1 << 30;
+
+    // Map width and height.
+    private final int width, height;
+
+    // Bitmask (by ordinal) of the symmetries which haven't been ruled out.
+    private int possible;
+
+    // Number of mismatching tile pairs seen for each symmetry.
+    private final int[] mismatches;
+
+    // Packed observations of every tile (x + y * width), or 0 if unobserved; only allocated once evidence is recorded.
+    private int[] tiles;
+
+    // The last round a tile was checked on, and how many tiles were checked on it.
+    private int checkRound, checks;
+
+    public SymmetryInference(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.possible = ALL_SYMMETRIES;
+        this.mismatches = new int[SYMMETRIES.length];
+        this.checkRound = -1;
+    }
+
+    /** Bitmask (by symmetry ordinal) of the symmetries which are still possible. */
+    public int possibleMask() {
+        return this.possible;
+    }
+
+    public boolean isPossible(Symmetry symmetry) {
+        return (this.possible & (1 << symmetry.ordinal())) != 0;
+    }
+
+    /** Rule out every symmetry not in the given mask; returns true if anything changed. */
+    public boolean restrict(int mask) {
+        int old = this.possible;
+        this.possible &= mask;
+        return this.possible != old;
+    }
+
+    /**
+     * Rule out every symmetry which would put the enemy HQ at the given location; returns true if anything changed. If
+     * that would leave no symmetry at all, evidence must have ruled out the right one, so every symmetry which doesn't
+     * put the HQ here becomes possible again and the evidence gathered so far is forgotten.
+     */
+    public boolean eliminateHqAt(MapLocation hq, MapLocation loc) {
+        int mask = 0;
+        for (Symmetry symmetry : SYMMETRIES) {
+            if (symmetry.mirrorX(hq.x, width) != loc.x || symmetry.mirrorY(hq.y, height) != loc.y) mask |= 1 << symmetry.ordinal();
+        }
+
+        if ((this.possible & mask) == 0) {
+            int old = this.possible;
+            this.possible = mask;
+            for (int i = 0; i < this.mismatches.length; i++) this.mismatches[i] = 0;
+            return this.possible != old;
+        }
+
+        return this.restrict(mask);
+    }
+
+    /**
+     * The distinct locations the enemy HQ could be at under the symmetries still possible. A symmetry which maps our
+     * HQ onto itself is impossible. If evidence has (wrongly) ruled out every symmetry, all of them are considered
+     * possible again rather than losing the enemy entirely.
+     */
+    public DynamicArray<MapLocation> candidates(MapLocation hq) {
+        if (this.possible == 0) this.possible = ALL_SYMMETRIES;
+
+        DynamicArray<MapLocation> result = new DynamicArray<>(SYMMETRIES.length);
+        for (Symmetry symmetry : SYMMETRIES) {
+            if (!this.isPossible(symmetry)) continue;
+
+            MapLocation loc = symmetry.reflect(hq, width, height);
+            if (loc.equals(hq)) this.possible &= ~(1 << symmetry.ordinal());
+            else if (!result.contains(loc)) result.add(loc);
+        }
+
+        return result;
+    }
+
+    /**
+     * Record the given tile's elevation, sensed on the given round, as evidence, and compare it against the mirrored
+     * tile under every possible symmetry. Returns a symmetry which this observation ruled out, or null. Only
+     * tiles sensed during the first SYMMETRY_EVIDENCE_ROUNDS rounds and away from both HQs (where units dig and mine the
+     * most) are used, and only the first SYMMETRY_CHECKS_PER_TURN of those each round.
+     */
+    public Symmetry observe(MapLocation loc, int elevation, int round, MapLocation hq) {
+        if (hq == null || round > Config.SYMMETRY_EVIDENCE_ROUNDS || Integer.bitCount(this.possible) <= 1) return null;
+        if (this.checkRound == round && this.checks >= Config.SYMMETRY_CHECKS_PER_TURN) return null;
+        if (loc.distanceSquaredTo(hq) <= Config.SYMMETRY_HQ_EXCLUSION_RADIUS_SQUARED) return null;
+        for (Symmetry symmetry : SYMMETRIES) {
+            if (this.distanceToMirror(loc, hq, symmetry) <= Config.SYMMETRY_HQ_EXCLUSION_RADIUS_SQUARED) return null;
+        }
+
+        if (this.tiles == null) this.tiles = new int[width * height];
+        if (this.checkRound != round) {
+            this.checkRound = round;
+            this.checks = 0;
+        }
+        this.checks++;
+
+        int observation = OBSERVED | (elevation & 0xFFFF);
+        this.tiles[loc.x + loc.y * width] = observation;
+
+        Symmetry eliminated = null;
+        for (Symmetry symmetry : SYMMETRIES) {
+            if (!this.isPossible(symmetry)) continue;
+
+            int mirrored = this.tiles[symmetry.mirrorX(loc.x, width) + symmetry.mirrorY(loc.y, height) * width];
+            if (mirrored == 0 || !SymmetryInference.mismatch(observation, mirrored)) continue;
+
+            if (++this.mismatches[symmetry.ordinal()] >= Config.SYMMETRY_MISMATCH_THRESHOLD) {
+                this.possible &= ~(1 << symmetry.ordinal());
+                eliminated = symmetry;
+            }
+        }
+
+        return eliminated;
+    }
+
+    /** Distance from the tile to where our HQ's mirror image would be under the given symmetry. */
+    private int distanceToMirror(MapLocation loc, MapLocation hq, Symmetry symmetry) {
+        int dx = loc.x - symmetry.mirrorX(hq.x, width), dy = loc.y - symmetry.mirrorY(hq.y, height);
+        return dx * dx + dy * dy;
+    }
+
+    /** True if two observations can't be mirror images of each other. */
+    private static boolean mismatch(int a, int b) {
+        return Math.abs((short) a - (short) b) > Config.SYMMETRY_ELEVATION_TOLERANCE;
+    }
+}
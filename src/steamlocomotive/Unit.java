@@ -1,8 +1,10 @@
 package steamlocomotive;
 
+import battlecode.common.Direction;
 import battlecode.common.GameActionException;
 import battlecode.common.MapLocation;
 import battlecode.common.RobotController;
+import battlecode.common.RobotInfo;
 
 import java.util.Random;
 
@@ -16,6 +18,23 @@ public abstract class Unit {
     // The global unique ID of this unit.
     protected int id;
 
+    // The controller for this unit, for pathfinders which sense the terrain themselves.
+    private RobotController controller;
+
+    // What this unit remembers of the map; allocated the first time it's needed, since buildings never need it.
+    private MapMemory memory;
+
+    // The long-range path search shared by this unit's pathfinders; likewise allocated when first needed.
+    private PathSearch pathSearch;
+
+    // The snapshot of the robots and soup around the unit, for units which take one each turn.
+    private Perception perception;
+
+    // Where the unit last recorded the terrain around it from (see recordTerrain), or null if it never has, and the
+    // round of its last full scan.
+    private MapLocation lastTerrainScan;
+    private int lastFullTerrainScan = Integer.MIN_VALUE / 2;
+
     public Unit(int id) {
         this.id = id;
         this.rng = new Random(id);
@@ -26,6 +45,13 @@ public abstract class Unit {
      */
     public abstract void run(RobotController rc, int turn) throws GameActionException;
 
+    /**
+     * Bind the unit to its controller; called once, before onCreation.
+     */
+    public void bind(RobotController rc) {
+        this.controller = rc;
+    }
+
     /**
      * Perform any initial agent actions when the agent is created.
      */
@@ -33,11 +59,75 @@ public abstract class Unit {
 
     /**
      * Return a new pathfinder which pathfinds to the given map location. If allowAdjacent is true, the agent
-     * will terminate upon reaching a point adjacent to the goal instead of on the goal.
+     * will terminate upon reaching a point adjacent to the goal instead of on the goal. Around obstacles, the
+     * pathfinder searches the sensed terrain for a way past when there are bytecodes to spare, and otherwise bugs.
      */
     public BugPathfinder newPathfinder(MapLocation goal, boolean allowAdjacent) {
-         return BugPathfinder.pathfindTo(goal,
-                 id % 2 == 0 ? BugPathfinder.FollowingDirection.CLOCKWISE : BugPathfinder.FollowingDirection.COUNTERCLOCKWISE,
-                 allowAdjacent);
+         return LocalPlanner.pathfindTo(this.controller, this.memory(), this.pathSearch(), goal, this.followingDirection(), allowAdjacent);
+    }
+
+    /**
+     * Spend the bytecodes left over at the end of the turn on the path search, if one is in progress.
+     */
+    public void afterTurn(RobotController rc) throws GameActionException {
+        if (this.pathSearch != null) this.pathSearch.step(Config.PATH_SEARCH_BYTECODE_RESERVE);
+    }
+
+    /**
+     * Record the terrain the unit can sense in its memory, so its pathfinders plan over what is actually there rather
+     * than taking unknown tiles to be passable. Between full rescans every TERRAIN_FULL_SCAN_INTERVAL rounds, only the
+     * tiles which just came into view are sensed, plus the ones next to the unit, which it may be digging or which may
+     * have flooded under it. The buildings among the given robots (which should be every robot sensed) are marked too.
+     */
+    protected void recordTerrain(RobotController rc, RobotInfo[] robots) throws GameActionException {
+        MapMemory memory = this.memory();
+        int round = rc.getRoundNum();
+        boolean fullScan = round - this.lastFullTerrainScan >= Config.TERRAIN_FULL_SCAN_INTERVAL;
+        SensorScan scan = fullScan ? SensorScan.begin(rc) : SensorScan.beginSince(rc, this.lastTerrainScan);
+        if (scan.isFull()) this.lastFullTerrainScan = round;
+        this.lastTerrainScan = rc.getLocation();
+
+        while (scan.next()) {
+            MapLocation loc = scan.location();
+            memory.record(loc, rc.senseElevation(loc), rc.senseFlooding(loc), 0, false, round);
+        }
+
+        for (Direction dir : Direction.allDirections()) {
+            MapLocation loc = rc.adjacentLocation(dir);
+            if (memory.contains(loc.x, loc.y) && !memory.seenOn(loc.x, loc.y, round) && rc.canSenseLocation(loc))
+                memory.record(loc, rc.senseElevation(loc), rc.senseFlooding(loc), 0, false, round);
+        }
+
+        for (RobotInfo robot : robots) {
+            if (robot.type.isBuilding()) memory.markBuilding(robot.location);
+        }
+    }
+
+    /** The unit's long-range path search. */
+    protected PathSearch pathSearch() {
+        if (this.pathSearch == null) {
+            this.pathSearch = new PathSearch(this.memory(), this.controller.getMapWidth(), this.controller.getMapHeight());
+        }
+        return this.pathSearch;
+    }
+
+    /** The unit's memory of the terrain it has sensed. */
+    protected MapMemory memory() {
+        if (this.memory == null) this.memory = new MapMemory(this.controller.getMapWidth(), this.controller.getMapHeight());
+        return this.memory;
+    }
+
+    /** The unit's perception snapshot; it's up to the unit to take a fresh one each turn. */
+    protected Perception perception() {
+        if (this.perception == null) this.perception = new Perception(this.controller.getMapWidth(), this.controller.getMapHeight());
+        return this.perception;
+    }
+
+    /**
+     * The direction this unit prefers to follow obstacles in; alternated between units so they don't all pile up. The
+     * pathfinder only goes the other way round when it can see that way is shorter.
+     */
+    protected BugPathfinder.FollowingDirection followingDirection() {
+        return id % 2 == 0 ? BugPathfinder.FollowingDirection.CLOCKWISE : BugPathfinder.FollowingDirection.COUNTERCLOCKWISE;
     }
 }
@@ -2,8 +2,6 @@ package steamlocomotive;
 
 import battlecode.common.*;
 
-import java.util.Random;
-
 /** General utilities for writing agents. */
 public class Utils {
 
@@ -45,20 +43,10 @@ public class Utils {
         return dir != Direction.CENTER && !isCardinal(dir);
     }
 
-    /** Run the consumer function on every sensable tile. */
+    /** Run the consumer function on every sensable tile, nearest first. See SensorScan to avoid the lambda. */
     public static void traverseSensable(RobotController rc, GameConsumer<MapLocation> func) throws GameActionException {
-        int visionRadius = (int) Math.ceil(Math.sqrt(rc.getType().sensorRadiusSquared));
-        int ourX = rc.getLocation().x;
-        int ourY = rc.getLocation().y;
-
-        for (int x = -visionRadius; x <= visionRadius; x++) {
-            for (int y = -visionRadius; y <= visionRadius; y++) {
-                MapLocation location = new MapLocation(ourX + x, ourY + y);
-                if (rc.canSenseLocation(location)) {
-                    func.accept(location);
-                }
-            }
-        }
+        SensorScan scan = SensorScan.begin(rc);
+        while (scan.next()) func.accept(scan.location());
     }
 
     /** Find the closest unit of the given type. The location will be null if there is no robot in sensor range. */
@@ -110,78 +98,6 @@ public class Utils {
         }
     }
 
-    /** Clusters groups of resources (water, soup) for memory/time efficient tracking. */
-    public static class Clusterer {
-        // The cluster representatives.
-        private MapLocation[] clusters;
-        // The min squared distance between clusters.
-        private int radius;
-
-        public Clusterer(int count, int radius) {
-            this.clusters = new MapLocation[count];
-            this.radius = radius;
-        }
-
-        /** Find the closest cluster representative to the given location. */
-        public MapLocation closest(MapLocation loc) {
-            int bestDistance = Integer.MAX_VALUE;
-            MapLocation best = null;
-            for (int i = 0; i < clusters.length; i++) {
-                MapLocation clust = clusters[i];
-                if (clust == null) continue;
-
-                int dist = clust.distanceSquaredTo(loc);
-                if (dist < bestDistance) {
-                    bestDistance = dist;
-                    best = clust;
-                }
-            }
-
-            return best;
-        }
-
-        /** Given a map location which should be included in a cluster, update the cluster state. */
-        public void update(RobotController rc, MapLocation loc, Random rng) {
-            int locToUs = rc.getLocation().distanceSquaredTo(loc);
-            int closest = -1;
-            for (int i = 0; i < clusters.length; i++) {
-                if (clusters[i] == null) continue;
-                int clusterToLoc = clusters[i].distanceSquaredTo(loc);
-                int clusterToUs = clusters[i].distanceSquaredTo(rc.getLocation());
-
-                // If this is part of a cluster, but is closer than the rep, swap.
-                if (clusterToLoc < this.radius) {
-                    closest = i;
-                    if (locToUs < clusterToUs) clusters[i] = loc;
-                    break;
-                }
-            }
-
-            // Not part of any cluster, swap out at random.
-            if (closest == -1) {
-                int index = rng.nextInt(clusters.length);
-                clusters[index] = loc;
-            }
-        }
-
-        /** Return true if this clusterer is tracking any clusters. */
-        public boolean hasCluster() {
-            for (int i = 0; i < this.clusters.length; i++) {
-                if (clusters[i] != null) return true;
-            }
-
-            return false;
-        }
-
-        /** Clear now-invalid tiles according to the predicate. */
-        public void clearInvalid(RobotController rc, GamePredicate<MapLocation> pred) throws GameActionException {
-            for (int i = 0; i < clusters.length; i++) {
-                if (clusters[i] == null) continue;
-                if (pred.check(clusters[i])) clusters[i] = null;
-            }
-        }
-    }
-
     public static void print(String string) {
         if(Config.DEBUG) {
             System.out.println(string);
@@ -1,5 +1,6 @@
 package steamlocomotive;
 
+import battlecode.common.MapLocation;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -39,4 +40,149 @@ public class BitconnectTest {
         assertEquals(5, reader.readInteger(6));
         assertTrue(reader.readBoolean());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPackedLocationRead() {
+        Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+        builder.append(5, 3);
+        for (int i = 0; i < 15; i++) {
+            builder.append(63 - i, 6);
+            builder.append(i * 3, 6);
+        }
+
+        Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+        assertEquals(5, reader.readInteger(3));
+        for (int i = 0; i < 15; i++) {
+            int packed = reader.readInteger(12);
+            assertEquals(Bitconnect.packLocation(new MapLocation(63 - i, i * 3)), packed);
+            assertEquals(new MapLocation(63 - i, i * 3), Bitconnect.unpackLocation(packed));
+        }
+
+        // A reset reader starts again from the beginning.
+        reader.reset(builder.finish());
+        assertEquals(5, reader.readInteger(3));
+    }
+
+    @Test
+    public void testEveryWidthAtEveryOffset() {
+        // Write a value of every width from 1 to 32 bits after every possible offset into the first word, so every
+        // aligned, unaligned and word-spanning case is covered.
+        for (int offset = 0; offset < 32; offset++) {
+            for (int width = 1; width <= 32; width++) {
+                int value = width == 32 ? 0xDEADBEEF : (0x5A5A5A5A >>> (32 - width)) | (1 << (width - 1));
+
+                Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+                builder.append(-1, offset);
+                builder.append(value, width);
+                builder.append(true);
+
+                Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+                assertEquals((1 << offset) - 1, reader.readInteger(offset));
+                assertEquals(value, reader.readInteger(width));
+                assertTrue(reader.readBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void testExtraBitsAreMasked() {
+        // Bits of the value above the requested width must not clobber the neighbouring fields.
+        Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+        builder.append(0xFFFF, 3);
+        builder.append(0, 29);
+        builder.append(0xFFFF, 4);
+
+        Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+        assertEquals(7, reader.readInteger(3));
+        assertEquals(0, reader.readInteger(29));
+        assertEquals(15, reader.readInteger(4));
+        assertEquals(0, reader.readInteger(28));
+    }
+
+    @Test
+    public void testBulkHelpers() {
+        DynamicArray<MapLocation> walls = new DynamicArray<>(8);
+        for (int i = 0; i < 8; i++) walls.add(new MapLocation(i * 7, 63 - i * 5));
+
+        Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+        builder.append(true);
+        builder.appendId(54321);
+        builder.appendLocations(walls, 4);
+        builder.appendLocation(new MapLocation(63, 63));
+        builder.appendId(10000);
+
+        // The bulk helpers write exactly what the plain appends would.
+        Bitconnect.BlockBuilder plain = new Bitconnect.BlockBuilder();
+        plain.append(true);
+        plain.append(54321, 16);
+        plain.append(walls.size(), 4);
+        for (MapLocation loc : walls) {
+            plain.append(loc.x, 6);
+            plain.append(loc.y, 6);
+        }
+        plain.append(63, 6);
+        plain.append(63, 6);
+        plain.append(10000, 16);
+        assertArrayEquals(plain.finish(), builder.finish());
+
+        Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+        assertTrue(reader.readBoolean());
+        assertEquals(54321, reader.readId());
+
+        int[] packed = new int[15];
+        assertEquals(walls.size(), reader.readPackedLocations(packed, 4));
+        for (int i = 0; i < walls.size(); i++) assertEquals(walls.get(i), Bitconnect.unpackLocation(packed[i]));
+
+        assertEquals(new MapLocation(63, 63), Bitconnect.unpackLocation(reader.readPackedLocation()));
+        assertEquals(10000, reader.readId());
+    }
+
+    @Test
+    public void testFullBlock() {
+        // Fill all six payload words with 12-bit locations and make sure the last one reads back intact.
+        Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+        for (int i = 0; i < Bitconnect.PAYLOAD_BITS / 12; i++) builder.appendLocation(new MapLocation(i, 63 - i));
+
+        Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+        for (int i = 0; i < Bitconnect.PAYLOAD_BITS / 12; i++)
+            assertEquals(new MapLocation(i, 63 - i), Bitconnect.unpackLocation(reader.readPackedLocation()));
+        assertEquals(0, builder.finish()[6]);
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() {
+        DynamicArray<MapLocation> walls = new DynamicArray<>(8);
+        for (int i = 0; i < 8; i++) walls.add(new MapLocation(20 + i % 3, 30 + i / 3));
+        Bitconnect.HQSurroundings surroundings = new Bitconnect.HQSurroundings(walls, new MapLocation(21, 31));
+
+        // Enemy HQ unknown: the candidate mask is written instead.
+        Bitconnect.StateSnapshot snapshot = new Bitconnect.StateSnapshot(surroundings, false, null, 5);
+        Bitconnect.BlockBuilder builder = new Bitconnect.BlockBuilder();
+        snapshot.write(builder);
+        builder.append(0x2A, 6);
+
+        Bitconnect.BlockReader reader = new Bitconnect.BlockReader(builder.finish());
+        Bitconnect.StateSnapshot read = Bitconnect.StateSnapshot.read(reader);
+        assertEquals(new MapLocation(21, 31), read.surroundings().hq());
+        assertEquals(walls.size(), read.surroundings().walls().size());
+        for (int i = 0; i < walls.size(); i++) assertEquals(walls.get(i), read.surroundings().walls().get(i));
+        assertFalse(read.wallDone());
+        assertNull(read.enemyHq());
+        assertEquals(5, read.candidateMask());
+        // Reading stops exactly where writing did.
+        assertEquals(0x2A, reader.readInteger(6));
+
+        // Enemy HQ known: its location is written instead of the mask.
+        snapshot = new Bitconnect.StateSnapshot(surroundings, true, new MapLocation(42, 12), 0);
+        builder = new Bitconnect.BlockBuilder();
+        snapshot.write(builder);
+        builder.append(0x2A, 6);
+        assertTrue(snapshot.bitSize() + 6 <= Bitconnect.PAYLOAD_BITS);
+
+        reader = new Bitconnect.BlockReader(builder.finish());
+        read = Bitconnect.StateSnapshot.read(reader);
+        assertTrue(read.wallDone());
+        assertEquals(new MapLocation(42, 12), read.enemyHq());
+        assertEquals(0x2A, reader.readInteger(6));
+    }
+}
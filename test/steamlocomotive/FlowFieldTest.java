@@ -0,0 +1,36 @@
+package steamlocomotive;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlowFieldTest {
+
+    @Test
+    public void testOnlyCoveredTilesHaveDirections() {
+        MapLocation hq = new MapLocation(20, 20);
+        MapLocation east = new MapLocation(23, 20), west = new MapLocation(17, 20);
+        FlowField field = new FlowField();
+        assertNull(field.direction(hq, east));
+
+        // Only the row through the HQ east of it is covered, and one tile there has a hint.
+        int row = FlowField.offset(hq, east) / FlowField.SIZE;
+        int mask = 0;
+        for (int x = FlowField.RADIUS + 1; x < FlowField.SIZE; x++) mask |= 1 << x;
+        field.applyRow(3, row, mask);
+        field.apply(3, FlowField.offset(hq, new MapLocation(22, 20)), Direction.NORTHWEST.ordinal());
+
+        assertEquals(Direction.WEST, field.direction(hq, east));
+        assertEquals(Direction.NORTHWEST, field.direction(hq, new MapLocation(22, 20)));
+        assertNull(field.direction(hq, west));
+        assertNull(field.direction(hq, new MapLocation(23, 21)));
+        assertNull(field.direction(hq, hq));
+
+        // A new version starts from nothing.
+        field.beginVersion(4);
+        assertNull(field.direction(hq, east));
+        assertFalse(field.coversAny());
+    }
+}
@@ -0,0 +1,57 @@
+package steamlocomotive;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HeartbeatRegistryTest {
+
+    @Test
+    public void testExpiry() {
+        HeartbeatRegistry registry = new HeartbeatRegistry(4, 60);
+        registry.update(1000, 5, 10);
+        registry.update(1004, 6, 30);
+        assertEquals(2, registry.size());
+
+        // The first heartbeat lasts through round 70 and expires on 71.
+        registry.expire(70);
+        assertEquals(2, registry.size());
+        registry.expire(71);
+        assertEquals(1, registry.size());
+        assertFalse(registry.contains(1000));
+        assertTrue(registry.contains(1004));
+
+        // A fresh heartbeat pushes the expiry back; a stale one doesn't pull it forward again.
+        registry.update(1004, 6, 80);
+        registry.update(1004, 6, 40);
+        registry.expire(100);
+        assertTrue(registry.contains(1004));
+        registry.expire(141);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testCollisionsAndIdleExpiry() {
+        HeartbeatRegistry registry = new HeartbeatRegistry(4, 60);
+
+        // Ids which all hash to the same slot still get their own entries.
+        for (int i = 0; i < 4; i++) assertTrue(registry.update(i * 4, i, 200 + i));
+        assertFalse(registry.update(99, 0, 200));
+
+        // Deleting the middle of a probe sequence must not hide the entries after it.
+        registry.expire(262);
+        assertFalse(registry.contains(0));
+        assertFalse(registry.contains(4));
+        assertTrue(registry.contains(8));
+        assertTrue(registry.contains(12));
+        for (int slot = 0; slot < registry.slots(); slot++) {
+            if (registry.isLive(slot) && registry.id(slot) == 12) assertEquals(3, registry.location(slot).x);
+        }
+
+        // Skipping many rounds at once still expires everything.
+        registry.expire(1000);
+        assertEquals(0, registry.size());
+        assertTrue(registry.update(99, 0, 990));
+        assertEquals(1, registry.size());
+    }
+}
@@ -0,0 +1,74 @@
+package steamlocomotive;
+
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathSearchTest {
+
+    // Enough expansions to finish any search on the small test maps; tests budget by nodes, since the bytecode clock
+    // only runs inside the engine.
+    private static final int MAX_NODES = 10000;
+
+    /** A 20x20 map of remembered flat ground with a flooded wall down x = 10, open only at the top. */
+    private static MapMemory walledMemory() {
+        MapMemory memory = new MapMemory(20, 20);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                memory.record(new MapLocation(x, y), 5, x == 10 && y < 17, 0, false, 1);
+            }
+        }
+
+        return memory;
+    }
+
+    @Test
+    public void testPathAroundWall() {
+        MapMemory memory = walledMemory();
+        PathSearch search = new PathSearch(memory, 20, 20);
+        search.start(new MapLocation(5, 5), new MapLocation(15, 5), 1);
+        search.expand(MAX_NODES);
+
+        assertTrue(search.isDone());
+        assertTrue(search.hasPath());
+
+        // Walk the waypoints; each should be reachable and never on the wall.
+        MapLocation at = new MapLocation(5, 5);
+        for (int i = 0; i < 20 && !at.equals(new MapLocation(15, 5)); i++) {
+            at = search.waypoint(at);
+            assertFalse(memory.isFlooded(at.x, at.y));
+        }
+        assertEquals(new MapLocation(15, 5), at);
+        assertFalse(search.isStale());
+    }
+
+    @Test
+    public void testPartialAndStale() {
+        MapMemory memory = walledMemory();
+        PathSearch search = new PathSearch(memory, 20, 20);
+
+        // Nothing expanded yet, so no better idea than the goal.
+        search.start(new MapLocation(5, 5), new MapLocation(15, 5), 1);
+        assertNull(search.waypoint(new MapLocation(5, 5)));
+
+        search.expand(MAX_NODES);
+        MapLocation first = search.waypoint(new MapLocation(5, 5));
+
+        // Learning that a tile just ahead on the path is a cliff invalidates it.
+        memory.record(first, 100, false, 0, false, 2);
+        assertTrue(search.isStale());
+    }
+
+    @Test
+    public void testUnknownIsPassable() {
+        MapMemory memory = new MapMemory(10, 10);
+        PathSearch search = new PathSearch(memory, 10, 10);
+        search.start(new MapLocation(0, 0), new MapLocation(9, 9), 1);
+        search.expand(MAX_NODES);
+
+        assertTrue(search.hasPath());
+        // Straight down the diagonal; we're already next to the first step, so the waypoint is counted from there.
+        assertEquals(new MapLocation(1 + Config.PATH_WAYPOINT_SPACING, 1 + Config.PATH_WAYPOINT_SPACING), search.waypoint(new MapLocation(0, 0)));
+    }
+}
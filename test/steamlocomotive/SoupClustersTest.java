@@ -0,0 +1,73 @@
+package steamlocomotive;
+
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SoupClustersTest {
+
+    @Test
+    public void testRichestFieldWins() {
+        SoupClusters soups = new SoupClusters(2, 16);
+        MapLocation us = new MapLocation(10, 10);
+        assertNull(soups.best(us, 1));
+
+        soups.beginScan(us, 1, 35);
+        soups.observe(new MapLocation(12, 10), 50);
+        soups.observe(new MapLocation(13, 10), 50);
+        soups.observe(new MapLocation(10, 15), 300);
+        soups.endScan();
+
+        assertTrue(soups.hasCluster());
+        assertEquals(new MapLocation(10, 15), soups.best(us, 1));
+
+        // A third, richer field replaces the poorest one, and wins despite the bonus for the field we were heading for.
+        soups.beginScan(us, 2, 35);
+        soups.observe(new MapLocation(12, 10), 50);
+        soups.observe(new MapLocation(13, 10), 50);
+        soups.observe(new MapLocation(10, 15), 300);
+        soups.observe(new MapLocation(5, 7), 1000);
+        soups.endScan();
+        assertEquals(new MapLocation(5, 7), soups.best(us, 2));
+    }
+
+    @Test
+    public void testDepletion() {
+        SoupClusters soups = new SoupClusters(2, 16);
+        MapLocation us = new MapLocation(10, 10);
+
+        soups.beginScan(us, 1, 35);
+        soups.observe(new MapLocation(12, 10), 100);
+        soups.endScan();
+
+        // Seen again with nothing left: forgotten straight away.
+        soups.beginScan(us, 2, 35);
+        soups.endScan();
+        assertFalse(soups.hasCluster());
+
+        // A field nobody mines is remembered however long we're away.
+        MapLocation away = new MapLocation(40, 40);
+        soups.beginScan(us, 3, 35);
+        soups.observe(new MapLocation(12, 10), 400);
+        soups.endScan();
+        soups.beginScan(away, 500, 35);
+        soups.endScan();
+        assertEquals(400, soups.remaining(0, 500));
+
+        // Seen going down by 200 a round, it's assumed to go down by half that (the rate is averaged) once out of
+        // sight, until the estimate runs out and it's forgotten.
+        soups.beginScan(us, 501, 35);
+        soups.observe(new MapLocation(12, 10), 400);
+        soups.endScan();
+        soups.beginScan(us, 502, 35);
+        soups.observe(new MapLocation(12, 10), 200);
+        soups.endScan();
+        soups.beginScan(away, 503, 35);
+        soups.endScan();
+        assertEquals(100, soups.remaining(0, 503));
+        soups.beginScan(away, 504, 35);
+        soups.endScan();
+        assertFalse(soups.hasCluster());
+    }
+}
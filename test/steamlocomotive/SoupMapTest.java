@@ -0,0 +1,55 @@
+package steamlocomotive;
+
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SoupMapTest {
+
+    @Test
+    public void testRegions() {
+        SoupMap map = new SoupMap(36, 36);
+        assertEquals(0, SoupMap.regionOf(0, 0));
+        assertEquals(SoupMap.NUM_REGIONS - 1, SoupMap.regionOf(63, 63));
+        assertEquals(1 + 2 * SoupMap.REGIONS_PER_SIDE, SoupMap.regionOf(8, 23));
+
+        // Centers of regions hanging off the edge of a small map are clamped onto it.
+        assertEquals(new MapLocation(12, 4), map.center(1));
+        assertEquals(new MapLocation(35, 35), map.center(SoupMap.regionOf(35, 35)));
+    }
+
+    @Test
+    public void testApplyAndBestTarget() {
+        SoupMap map = new SoupMap(64, 64);
+        assertNull(map.bestTarget(new MapLocation(0, 0)));
+
+        map.apply(SoupMap.regionOf(60, 60), SoupMap.MAX_LEVEL, 10);
+        map.apply(SoupMap.regionOf(4, 20), 1, 10);
+        assertEquals(map.center(SoupMap.regionOf(4, 20)), map.bestTarget(new MapLocation(4, 4)));
+        assertEquals(map.center(SoupMap.regionOf(60, 60)), map.bestTarget(new MapLocation(40, 40)));
+
+        // Older news doesn't overwrite newer.
+        map.apply(SoupMap.regionOf(4, 20), 0, 5);
+        assertEquals(1, map.level(SoupMap.regionOf(4, 20)));
+        map.apply(SoupMap.regionOf(4, 20), 0, 11);
+        assertEquals(0, map.level(SoupMap.regionOf(4, 20)));
+        // Neither does news from the same round as ours, unless it agrees.
+        map.apply(SoupMap.regionOf(4, 20), 2, 11);
+        assertEquals(0, map.level(SoupMap.regionOf(4, 20)));
+        map.apply(SoupMap.regionOf(4, 20), 0, 11);
+        assertFalse(map.hasDirty());
+    }
+
+    @Test
+    public void testLocalLevelHysteresis() {
+        // More soup than the level allows raises it, whatever we can see.
+        assertEquals(SoupMap.MAX_LEVEL, SoupMap.localLevel(1, Config.SOUP_FIELD_RICH, false));
+
+        // Less only lowers it with the region's center in view, and well under the threshold.
+        assertEquals(2, SoupMap.localLevel(2, 1, false));
+        assertEquals(2, SoupMap.localLevel(2, Config.SOUP_FIELD_MEDIUM - 1, true));
+        assertEquals(1, SoupMap.localLevel(2, Config.SOUP_FIELD_MEDIUM / 2, true));
+        assertEquals(0, SoupMap.localLevel(SoupMap.MAX_LEVEL, 0, true));
+    }
+}
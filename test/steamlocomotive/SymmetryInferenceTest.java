@@ -0,0 +1,100 @@
+package steamlocomotive;
+
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SymmetryInferenceTest {
+
+    @Test
+    public void testCandidates() {
+        SymmetryInference inference = new SymmetryInference(40, 30);
+        MapLocation hq = new MapLocation(5, 7);
+
+        DynamicArray<MapLocation> candidates = inference.candidates(hq);
+        assertEquals(3, candidates.size());
+        assertTrue(candidates.contains(new MapLocation(5, 22)));
+        assertTrue(candidates.contains(new MapLocation(34, 7)));
+        assertTrue(candidates.contains(new MapLocation(34, 22)));
+
+        // Ruling out a location rules out the symmetry that put the HQ there, and only that one.
+        assertTrue(inference.eliminateHqAt(hq, new MapLocation(34, 22)));
+        assertFalse(inference.eliminateHqAt(hq, new MapLocation(34, 22)));
+        assertFalse(inference.isPossible(SymmetryInference.Symmetry.ROTATIONAL));
+        assertEquals(2, inference.candidates(hq).size());
+
+        assertTrue(inference.restrict(1 << SymmetryInference.Symmetry.VERTICAL.ordinal()));
+        candidates = inference.candidates(hq);
+        assertEquals(1, candidates.size());
+        assertEquals(new MapLocation(34, 7), candidates.get(0));
+    }
+
+    @Test
+    public void testCenteredHq() {
+        // An HQ on the vertical center line is its own vertical mirror image, so that symmetry is impossible; the
+        // other two both put the enemy HQ at the same place.
+        SymmetryInference inference = new SymmetryInference(41, 30);
+        MapLocation hq = new MapLocation(20, 3);
+
+        DynamicArray<MapLocation> candidates = inference.candidates(hq);
+        assertEquals(1, candidates.size());
+        assertEquals(new MapLocation(20, 26), candidates.get(0));
+        assertFalse(inference.isPossible(SymmetryInference.Symmetry.VERTICAL));
+    }
+
+    @Test
+    public void testEvidence() {
+        SymmetryInference inference = new SymmetryInference(40, 40);
+        MapLocation hq = new MapLocation(3, 3);
+
+        // Tiles in the middle column: their vertical mirrors (x flips) have a different elevation, so every pair counts
+        // against vertical symmetry, which goes once enough pairs disagree.
+        SymmetryInference.Symmetry ruledOut = null;
+        for (int y = 12; y < 12 + Config.SYMMETRY_MISMATCH_THRESHOLD; y++) {
+            assertNull(inference.observe(new MapLocation(15, y), 5, 10, hq));
+            ruledOut = inference.observe(new MapLocation(24, y), 20, 10, hq);
+        }
+        assertEquals(SymmetryInference.Symmetry.VERTICAL, ruledOut);
+        assertFalse(inference.isPossible(SymmetryInference.Symmetry.VERTICAL));
+        assertTrue(inference.isPossible(SymmetryInference.Symmetry.HORIZONTAL));
+    }
+
+    @Test
+    public void testChecksPerTurnAreCapped() {
+        SymmetryInference inference = new SymmetryInference(64, 64);
+        MapLocation hq = new MapLocation(3, 3);
+
+        // Use up the turn's checks on tiles with nothing to compare against yet.
+        for (int i = 0; i < Config.SYMMETRY_CHECKS_PER_TURN; i++)
+            inference.observe(new MapLocation(20 + i % 10, 20 + i / 10), 5, 10, hq);
+
+        // Mismatching mirrors seen this turn are ignored; the same ones next turn count.
+        for (int y = 12; y < 12 + Config.SYMMETRY_MISMATCH_THRESHOLD; y++) {
+            inference.observe(new MapLocation(15, y), 5, 10, hq);
+            inference.observe(new MapLocation(48, y), 20, 10, hq);
+        }
+        assertTrue(inference.isPossible(SymmetryInference.Symmetry.VERTICAL));
+
+        for (int y = 12; y < 12 + Config.SYMMETRY_MISMATCH_THRESHOLD; y++) {
+            inference.observe(new MapLocation(15, y), 5, 11, hq);
+            inference.observe(new MapLocation(48, y), 20, 11, hq);
+        }
+        assertFalse(inference.isPossible(SymmetryInference.Symmetry.VERTICAL));
+    }
+
+    @Test
+    public void testEliminatingEverySymmetryStartsOver() {
+        SymmetryInference inference = new SymmetryInference(40, 30);
+        MapLocation hq = new MapLocation(5, 7);
+
+        // Evidence (wrongly) leaves only vertical symmetry; then the HQ turns out not to be where that puts it.
+        inference.restrict(1 << SymmetryInference.Symmetry.VERTICAL.ordinal());
+        assertTrue(inference.eliminateHqAt(hq, new MapLocation(34, 7)));
+
+        DynamicArray<MapLocation> candidates = inference.candidates(hq);
+        assertEquals(2, candidates.size());
+        assertTrue(candidates.contains(new MapLocation(5, 22)));
+        assertTrue(candidates.contains(new MapLocation(34, 22)));
+    }
+}